@@ -0,0 +1,156 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.TaskMonitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Distances between all pairs of nodes. Sparse graphs run one Dijkstra per source, in parallel on the common
+ * ForkJoinPool with one heap and distance array per task. Dense graphs, and graphs with negative weights,
+ * use Floyd-Warshall on 64 x 64 blocks, so each pass over a block stays in cache and the independent blocks of a
+ * round run in parallel. Directed edges are only followed forwards.
+ */
+public final class AllPairsShortestPaths {
+    private static final int BLOCK = 64;
+    private static final int SOURCES_PER_TASK = 16;
+    // Floyd-Warshall is preferred once there is an edge for every DENSE_RATIO node pairs
+    private static final int DENSE_RATIO = 4;
+    private static final long UNREACHED = Long.MAX_VALUE;
+    // Only reached through negative cycles; clamping there keeps the ints from wrapping before the cycle is noticed
+    private static final int NEGATIVE_FLOOR = Integer.MIN_VALUE / 2;
+
+    private AllPairsShortestPaths() {
+    }
+
+    /** Returns null if the graph contains a negative cycle. */
+    public static DistanceMatrix compute(CompactGraph graph, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        boolean negative = false;
+        for (int e = 0; e < graph.edgeCount() && !negative; e++) negative = graph.edgeWeight(e) < 0;
+        if (negative || (long) graph.edgeCount() * DENSE_RATIO >= (long) n * n) return floydWarshall(graph, monitor);
+        return dijkstraFromEverySource(graph, monitor);
+    }
+
+    public static DistanceMatrix dijkstraFromEverySource(CompactGraph graph, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        DistanceMatrix matrix = new DistanceMatrix(n);
+        AtomicInteger finished = new AtomicInteger();
+        List<RecursiveAction> tasks = new ArrayList<>();
+        for (int first = 0; first < n; first += SOURCES_PER_TASK) {
+            int from = first, to = Math.min(n, first + SOURCES_PER_TASK);
+            tasks.add(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    long[] distances = new long[n];
+                    IndexedMinHeap heap = new IndexedMinHeap(n);
+                    for (int source = from; source < to && !monitor.isCancelled(); source++) {
+                        dijkstra(graph, source, distances, heap);
+                        storeRow(matrix.values(), source * n, distances);
+                        monitor.onProgress(finished.incrementAndGet(), n);
+                    }
+                }
+            });
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        monitor.checkCancelled();
+        return matrix;
+    }
+
+    private static void dijkstra(CompactGraph graph, int source, long[] distances, IndexedMinHeap heap) {
+        Arrays.fill(distances, UNREACHED);
+        distances[source] = 0;
+        heap.push(source, 0);
+        while (!heap.isEmpty()) {
+            int v = heap.pop();
+            long distance = distances[v];
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                if (graph.isReverse(arc)) continue;
+                int w = graph.target(arc);
+                long candidate = distance + graph.weight(arc);
+                if (candidate >= distances[w]) continue;
+                distances[w] = candidate;
+                heap.push(w, candidate);
+            }
+        }
+    }
+
+    private static void storeRow(int[] values, int offset, long[] distances) {
+        for (int to = 0; to < distances.length; to++) {
+            values[offset + to] = distances[to] == UNREACHED ? DistanceMatrix.UNREACHABLE : toInt(distances[to]);
+        }
+    }
+
+    private static int toInt(long distance) {
+        if (distance >= DistanceMatrix.UNREACHABLE || distance < -DistanceMatrix.UNREACHABLE) {
+            throw new ArithmeticException("Distance " + distance + " does not fit the matrix");
+        }
+        return (int) distance;
+    }
+
+    /** Blocked Floyd-Warshall in O(V^3); returns null if the graph contains a negative cycle. */
+    public static DistanceMatrix floydWarshall(CompactGraph graph, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        DistanceMatrix matrix = new DistanceMatrix(n);
+        int[] d = matrix.values();
+        Arrays.fill(d, DistanceMatrix.UNREACHABLE);
+        for (int v = 0; v < n; v++) d[v * n + v] = 0;
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            int from = graph.edgeSource(e), to = graph.edgeTarget(e), weight = graph.edgeWeight(e);
+            d[from * n + to] = Math.min(d[from * n + to], weight);
+            if (!graph.isDirected(e)) d[to * n + from] = Math.min(d[to * n + from], weight);
+        }
+
+        int blocks = (n + BLOCK - 1) / BLOCK;
+        for (int kb = 0; kb < blocks; kb++) {
+            monitor.checkCancelled();
+            monitor.onProgress(kb, blocks);
+            int k = kb;
+            // The pivot block first, then its row and column, then everything else, which only reads those
+            relaxBlock(d, n, k, k, k);
+            IntStream.range(0, blocks).parallel().filter(b -> b != k).forEach(b -> {
+                relaxBlock(d, n, k, b, k);
+                relaxBlock(d, n, b, k, k);
+            });
+            IntStream.range(0, blocks).parallel().filter(ib -> ib != k).forEach(ib -> {
+                for (int jb = 0; jb < blocks; jb++) {
+                    if (jb != k) relaxBlock(d, n, ib, jb, k);
+                }
+            });
+            for (int v = 0; v < n; v++) {
+                if (d[v * n + v] < 0) return null;
+            }
+        }
+        return matrix;
+    }
+
+    // d[i][j] = min(d[i][j], d[i][k] + d[k][j]) for i, j, k in the given blocks, k outermost
+    private static void relaxBlock(int[] d, int n, int ib, int jb, int kb) {
+        int iEnd = Math.min(n, (ib + 1) * BLOCK), jEnd = Math.min(n, (jb + 1) * BLOCK), kEnd = Math.min(n, (kb + 1) * BLOCK);
+        for (int k = kb * BLOCK; k < kEnd; k++) {
+            int kRow = k * n;
+            for (int i = ib * BLOCK; i < iEnd; i++) {
+                int ik = d[i * n + k];
+                if (ik == DistanceMatrix.UNREACHABLE) continue;
+                int iRow = i * n;
+                for (int j = jb * BLOCK; j < jEnd; j++) {
+                    int kj = d[kRow + j];
+                    if (kj == DistanceMatrix.UNREACHABLE) continue;
+                    long candidate = (long) ik + kj;
+                    if (candidate < d[iRow + j]) d[iRow + j] = candidate < NEGATIVE_FLOOR ? NEGATIVE_FLOOR : toInt(candidate);
+                }
+            }
+        }
+    }
+}
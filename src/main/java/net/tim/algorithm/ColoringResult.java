@@ -0,0 +1,5 @@
+package net.tim.algorithm;
+
+/** Colour index per node of a {@link net.tim.model.CompactGraph}, and how many distinct colours were used. */
+public record ColoringResult(int[] colors, int colorCount) {
+}
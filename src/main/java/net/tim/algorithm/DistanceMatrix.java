@@ -0,0 +1,111 @@
+package net.tim.algorithm;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Shortest distances between all pairs of nodes of a {@link net.tim.model.CompactGraph}, stored row by row in one
+ * {@code int[]}. Eccentricity, diameter and closeness only count the nodes a node can actually reach, so a graph
+ * that is not strongly connected still gets useful values.
+ */
+public final class DistanceMatrix {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    // Largest node count whose matrix still fits one Java array
+    public static final int MAX_NODES = 46_340;
+    static final byte[] MAGIC = {'G', 'V', 'D', 'M'};
+    static final int VERSION = 1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final int n;
+    private final int[] distances;
+
+    DistanceMatrix(int n) {
+        if (n > MAX_NODES) throw new IllegalArgumentException("Too many nodes for a distance matrix: " + n);
+        this.n = n;
+        this.distances = new int[n * n];
+    }
+
+    public int size() {
+        return n;
+    }
+
+    public int get(int from, int to) {
+        return distances[from * n + to];
+    }
+
+    public boolean isReachable(int from, int to) {
+        return distances[from * n + to] != UNREACHABLE;
+    }
+
+    // Backing array for the engines; row r starts at r * size()
+    int[] values() {
+        return distances;
+    }
+
+    /** Greatest distance from the node to any node it reaches; 0 if it reaches nothing else. */
+    public int eccentricity(int node) {
+        int eccentricity = 0;
+        for (int i = node * n, end = i + n; i < end; i++) {
+            if (distances[i] != UNREACHABLE) eccentricity = Math.max(eccentricity, distances[i]);
+        }
+        return eccentricity;
+    }
+
+    public int diameter() {
+        int diameter = 0;
+        for (int v = 0; v < n; v++) diameter = Math.max(diameter, eccentricity(v));
+        return diameter;
+    }
+
+    /** Reachable nodes divided by their total distance, 0 for a node that reaches nothing else. */
+    public double closeness(int node) {
+        long total = 0;
+        int reached = 0;
+        for (int to = 0; to < n; to++) {
+            int distance = distances[node * n + to];
+            if (to == node || distance == UNREACHABLE) continue;
+            total += distance;
+            reached++;
+        }
+        return total <= 0 ? 0 : (double) reached / total;
+    }
+
+    /** One line per source node, distances separated by commas; unreachable pairs are left empty. */
+    public void writeCsv(Writer writer) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int from = 0; from < n; from++) {
+            line.setLength(0);
+            for (int to = 0; to < n; to++) {
+                if (to > 0) line.append(',');
+                int distance = distances[from * n + to];
+                if (distance != UNREACHABLE) line.append(distance);
+            }
+            writer.write(line.append('\n').toString());
+        }
+    }
+
+    // Little-endian: magic "GVDM", int version, int nodeCount, then the matrix row by row, UNREACHABLE included
+    public void writeBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).putInt(VERSION).putInt(n);
+            for (int i = 0; i < distances.length; ) {
+                int count = Math.min(buffer.remaining() / Integer.BYTES, distances.length - i);
+                buffer.asIntBuffer().put(distances, i, count);
+                buffer.position(buffer.position() + count * Integer.BYTES);
+                i += count;
+                buffer.flip();
+                while (buffer.hasRemaining()) channel.write(buffer);
+                buffer.clear();
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+}
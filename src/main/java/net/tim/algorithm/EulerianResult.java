@@ -0,0 +1,5 @@
+package net.tim.algorithm;
+
+// An Eulerian circuit or path as node ids in visiting order plus the edge ids between them
+public record EulerianResult(int[] nodes, int[] edges, boolean circuit) {
+}
@@ -0,0 +1,109 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.GraphTraversal;
+import net.tim.model.TaskMonitor;
+
+/**
+ * Hierholzer's algorithm in O(V + E). Each node keeps a cursor into its arcs, so every arc is looked at once.
+ * Graphs whose edges are all directed are walked forwards only; graphs with undirected or mixed edges are treated
+ * as undirected, since an Euler tour in a mixed graph is a flow problem of its own.
+ */
+public final class EulerianTrail {
+    private EulerianTrail() {
+    }
+
+    public static EulerianResult find(CompactGraph graph, TaskMonitor monitor) {
+        int m = graph.edgeCount();
+        if (m == 0) return null;
+        boolean directed = isFullyDirected(graph);
+        int start = directed ? directedStart(graph) : undirectedStart(graph);
+        if (start < 0) return null;
+        // With the degrees balanced, connectivity ignoring direction is all a trail still needs
+        if (!new GraphTraversal(graph).isConnected()) return null;
+        return walk(graph, start, directed, monitor);
+    }
+
+    private static boolean isFullyDirected(CompactGraph graph) {
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (!graph.isDirected(e)) return false;
+        }
+        return true;
+    }
+
+    // An odd node if there are exactly two, otherwise any node with edges; -1 if no trail can exist
+    private static int undirectedStart(CompactGraph graph) {
+        int odd = 0, start = -1, anyNode = -1;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            int degree = graph.degree(v);
+            if (degree > 0 && anyNode < 0) anyNode = v;
+            if (degree % 2 != 0) {
+                if (++odd > 2) return -1;
+                if (start < 0) start = v;
+            }
+        }
+        return odd == 0 ? anyNode : start;
+    }
+
+    // The node with one more outgoing than incoming edge, if any; every other node must be balanced
+    private static int directedStart(CompactGraph graph) {
+        int start = -1, end = -1, anyNode = -1;
+        for (int v = 0; v < graph.nodeCount(); v++) {
+            int balance = 0;
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                balance += graph.isReverse(arc) ? -1 : 1;
+            }
+            if (graph.degree(v) > 0 && anyNode < 0) anyNode = v;
+            if (balance == 0) continue;
+            if (balance == 1 && start < 0) start = v;
+            else if (balance == -1 && end < 0) end = v;
+            else return -1;
+        }
+        if ((start < 0) != (end < 0)) return -1;
+        return start < 0 ? anyNode : start;
+    }
+
+    private static EulerianResult walk(CompactGraph graph, int start, boolean directed, TaskMonitor monitor) {
+        int n = graph.nodeCount(), m = graph.edgeCount();
+        boolean[] usedEdges = new boolean[m];
+        int[] cursor = new int[n];
+        for (int v = 0; v < n; v++) cursor[v] = graph.firstArc(v);
+        int[] nodeStack = new int[m + 1], edgeStack = new int[m + 1];
+        int[] nodes = new int[m + 1], edges = new int[m];
+        int size = 0, nodeCount = 0, edgeCount = 0, pushed = 0;
+        nodeStack[size++] = start;
+
+        while (size > 0) {
+            int v = nodeStack[size - 1];
+            int arc = cursor[v];
+            while (arc < graph.endArc(v) && (usedEdges[graph.arcEdge(arc)] || (directed && graph.isReverse(arc)))) arc++;
+            cursor[v] = arc;
+            if (arc < graph.endArc(v)) {
+                int edge = graph.arcEdge(arc);
+                usedEdges[edge] = true;
+                nodeStack[size] = graph.target(arc);
+                edgeStack[size++] = edge;
+                if ((++pushed & 0xFFF) == 0) {
+                    monitor.checkCancelled();
+                    monitor.onProgress(pushed, m);
+                }
+            } else {
+                // Finished nodes come off the stack in reverse trail order
+                size--;
+                nodes[nodeCount++] = v;
+                if (size > 0) edges[edgeCount++] = edgeStack[size];
+            }
+        }
+        reverse(nodes, nodeCount);
+        reverse(edges, edgeCount);
+        return new EulerianResult(nodes, edges, nodes[0] == nodes[nodeCount - 1]);
+    }
+
+    private static void reverse(int[] values, int length) {
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int swap = values[i];
+            values[i] = values[j];
+            values[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.Node;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Fruchterman-Reingold layout. Every pair of nodes repels with k^2 / d and every edge attracts with d^2 / k, where
+ * k is the preferred edge length; a weak pull towards the centroid keeps separate components close. Repulsion is
+ * approximated with a Barnes-Hut quadtree, rebuilt each step, so a step costs O(n log n + m) instead of O(n^2).
+ * Forces are summed per node in parallel: each node only writes its own displacement and reads its own arcs, so no
+ * locking is needed. Moves are capped by a temperature that cools geometrically, so the layout settles.
+ * Edge direction and weights are ignored.
+ */
+public final class ForceLayout {
+    public static final double EDGE_LENGTH = 80;
+    public static final int MAX_STEPS = 300;
+    // Cells narrower than THETA times their distance are treated as one body
+    private static final double THETA = 0.9;
+    private static final double GRAVITY = 0.01;
+    private static final double COOLING = 0.97;
+    private static final int MAX_DEPTH = 40;
+    private static final int NODES_PER_TASK = 512;
+    private static final int EMPTY = -1, INTERNAL = -2;
+
+    private final CompactGraph graph;
+    private final int n;
+    private final double[] xs, ys, dxs, dys;
+    // Nodes in quadtree order, so consecutive nodes walk mostly the same cells and find them in cache
+    private final int[] order;
+    private double temperature;
+    private int steps;
+
+    // Quadtree in parallel arrays; cell 0 is the root and children come in groups of four
+    private int[] children = new int[0], bodies = new int[0], depths = new int[0];
+    private double[] masses = new double[0], sumXs = new double[0], sumYs = new double[0];
+    // Per cell, filled once the tree is built: centre of mass x and y, mass, and the squared distance below which
+    // the cell has to be opened; interleaved so one cache line serves a visit
+    private double[] summary = new double[0];
+    private double rootX, rootY, rootSize;
+    private int cells;
+
+    /** Starts from the current node positions; nodes sharing a position are scattered around it first. */
+    public ForceLayout(CompactGraph graph) {
+        this.graph = graph;
+        n = graph.nodeCount();
+        xs = new double[n];
+        ys = new double[n];
+        dxs = new double[n];
+        dys = new double[n];
+        order = new int[n];
+        Random random = new Random(n);
+        Set<Long> taken = new HashSet<>();
+        double spread = EDGE_LENGTH * Math.sqrt(n);
+        for (int v = 0; v < n; v++) {
+            Node node = graph.node(v);
+            xs[v] = node.getX();
+            ys[v] = node.getY();
+            if (!taken.add((long) node.getX() << 32 | (node.getY() & 0xFFFFFFFFL))) {
+                xs[v] += (random.nextDouble() - 0.5) * spread;
+                ys[v] += (random.nextDouble() - 0.5) * spread;
+            }
+        }
+        temperature = spread / 4;
+    }
+
+    public boolean isFinished() {
+        return steps >= MAX_STEPS || temperature < 0.5 || n == 0;
+    }
+
+    public int x(int node) {
+        return (int) Math.round(xs[node]);
+    }
+
+    public int y(int node) {
+        return (int) Math.round(ys[node]);
+    }
+
+    public int steps() {
+        return steps;
+    }
+
+    public void step() {
+        double centerX = 0, centerY = 0;
+        for (int v = 0; v < n; v++) {
+            centerX += xs[v] / n;
+            centerY += ys[v] / n;
+        }
+        buildTree();
+        double cx = centerX, cy = centerY;
+        IntStream.range(0, (n + NODES_PER_TASK - 1) / NODES_PER_TASK).parallel().forEach(task -> {
+            int[] stack = new int[4 * MAX_DEPTH + 8];
+            for (int i = task * NODES_PER_TASK, end = Math.min(n, i + NODES_PER_TASK); i < end; i++) {
+                accumulateForces(order[i], stack, cx, cy);
+            }
+        });
+        double limit = temperature;
+        IntStream.range(0, n).parallel().forEach(v -> {
+            double length = Math.sqrt(dxs[v] * dxs[v] + dys[v] * dys[v]);
+            if (length == 0) return;
+            double scale = Math.min(length, limit) / length;
+            xs[v] += dxs[v] * scale;
+            ys[v] += dys[v] * scale;
+        });
+        temperature *= COOLING;
+        steps++;
+    }
+
+    private void accumulateForces(int v, int[] stack, double centerX, double centerY) {
+        double x = xs[v], y = ys[v], k2 = EDGE_LENGTH * EDGE_LENGTH;
+        double fx = (centerX - x) * GRAVITY, fy = (centerY - y) * GRAVITY;
+
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top], at = cell * 4;
+            double mass = summary[at + 2];
+            if (mass == 0 || bodies[cell] == v) continue;
+            double dx = x - summary[at], dy = y - summary[at + 1], d2 = dx * dx + dy * dy;
+            if (bodies[cell] == INTERNAL && summary[at + 3] >= d2) {
+                for (int q = 0; q < 4; q++) {
+                    if (children[cell * 4 + q] != EMPTY) stack[top++] = children[cell * 4 + q];
+                }
+                continue;
+            }
+            if (d2 == 0) continue;
+            // k^2 / d along the unit vector (dx, dy) / d
+            double f = mass * k2 / d2;
+            fx += dx * f;
+            fy += dy * f;
+        }
+
+        for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+            int w = graph.target(arc);
+            if (w == v) continue;
+            double dx = xs[w] - x, dy = ys[w] - y;
+            // d^2 / k along the unit vector
+            double f = Math.sqrt(dx * dx + dy * dy) / EDGE_LENGTH;
+            fx += dx * f;
+            fy += dy * f;
+        }
+        dxs[v] = fx;
+        dys[v] = fy;
+    }
+
+    private void buildTree() {
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int v = 0; v < n; v++) {
+            minX = Math.min(minX, xs[v]);
+            minY = Math.min(minY, ys[v]);
+            maxX = Math.max(maxX, xs[v]);
+            maxY = Math.max(maxY, ys[v]);
+        }
+        rootSize = Math.max(1, Math.max(maxX - minX, maxY - minY)) * 1.0001;
+        rootX = minX;
+        rootY = minY;
+        cells = 0;
+        newCell(0);
+        for (int v = 0; v < n; v++) insert(v);
+
+        if (summary.length < bodies.length * 4) summary = new double[bodies.length * 4];
+        int count = 0, top = 0;
+        int[] stack = new int[4 * MAX_DEPTH + 8];
+        stack[top++] = 0;
+        while (top > 0) {
+            int cell = stack[--top];
+            if (bodies[cell] >= 0) {
+                order[count++] = bodies[cell];
+                continue;
+            }
+            for (int q = 0; q < 4; q++) {
+                if (children[cell * 4 + q] != EMPTY) stack[top++] = children[cell * 4 + q];
+            }
+        }
+        // Bodies merged into a leaf at the depth limit are not listed by the walk above
+        if (count < n) {
+            boolean[] listed = new boolean[n];
+            for (int i = 0; i < count; i++) listed[order[i]] = true;
+            for (int v = 0; v < n; v++) {
+                if (!listed[v]) order[count++] = v;
+            }
+        }
+
+        for (int cell = 0; cell < cells; cell++) {
+            int at = cell * 4;
+            summary[at + 2] = masses[cell];
+            if (masses[cell] == 0) continue;
+            summary[at] = sumXs[cell] / masses[cell];
+            summary[at + 1] = sumYs[cell] / masses[cell];
+            double size = Math.scalb(rootSize, -depths[cell]) / THETA;
+            summary[at + 3] = size * size;
+        }
+    }
+
+    private int newCell(int depth) {
+        if (cells == bodies.length) {
+            int capacity = Math.max(64, cells * 2);
+            children = Arrays.copyOf(children, capacity * 4);
+            bodies = Arrays.copyOf(bodies, capacity);
+            masses = Arrays.copyOf(masses, capacity);
+            sumXs = Arrays.copyOf(sumXs, capacity);
+            sumYs = Arrays.copyOf(sumYs, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+        }
+        int cell = cells++;
+        Arrays.fill(children, cell * 4, cell * 4 + 4, EMPTY);
+        bodies[cell] = EMPTY;
+        masses[cell] = 0;
+        sumXs[cell] = 0;
+        sumYs[cell] = 0;
+        depths[cell] = depth;
+        return cell;
+    }
+
+    private void insert(int v) {
+        int cell = 0, depth = 0;
+        double left = rootX, top = rootY, size = rootSize;
+        while (true) {
+            if (bodies[cell] == EMPTY && masses[cell] == 0) {
+                bodies[cell] = v;
+                addMass(cell, v);
+                return;
+            }
+            if (bodies[cell] >= 0) {
+                // Nodes that still share a cell this deep are effectively coincident and stay one body
+                if (depth == MAX_DEPTH) {
+                    addMass(cell, v);
+                    return;
+                }
+                int resident = bodies[cell];
+                bodies[cell] = INTERNAL;
+                int q = quadrant(resident, left, top, size);
+                int child = newCell(depth + 1);
+                children[cell * 4 + q] = child;
+                bodies[child] = resident;
+                addMass(child, resident);
+            }
+            addMass(cell, v);
+            int q = quadrant(v, left, top, size);
+            size /= 2;
+            if ((q & 1) != 0) left += size;
+            if ((q & 2) != 0) top += size;
+            depth++;
+            if (children[cell * 4 + q] == EMPTY) {
+                int child = newCell(depth);
+                children[cell * 4 + q] = child;
+                bodies[child] = v;
+                addMass(child, v);
+                return;
+            }
+            cell = children[cell * 4 + q];
+        }
+    }
+
+    private int quadrant(int v, double left, double top, double size) {
+        double half = size / 2;
+        return (xs[v] >= left + half ? 1 : 0) | (ys[v] >= top + half ? 2 : 0);
+    }
+
+    private void addMass(int cell, int v) {
+        masses[cell]++;
+        sumXs[cell] += xs[v];
+        sumYs[cell] += ys[v];
+    }
+}
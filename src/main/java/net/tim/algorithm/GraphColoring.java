@@ -0,0 +1,142 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.TaskMonitor;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Proper vertex colourings with as many colours as the graph needs. Edge direction is ignored and self-loops are
+ * skipped, since no colouring could satisfy them.
+ * <ul>
+ * <li>DSatur colours the node with the most differently coloured neighbours next, in O(V log V + E).
+ * Nodes sit in one list per saturation, so picking the next node is a look at the highest non-empty list. The
+ * lists start out sorted by degree and promoted nodes go to the front, which approximates the usual degree
+ * tie-break without re-sorting.</li>
+ * <li>Jones-Plassmann gives every node a random priority; in each round all nodes that outrank their uncoloured
+ * neighbours form an independent set and take their smallest free colour in parallel. It usually needs a few
+ * more colours than DSatur but scales with the cores on large graphs.</li>
+ * </ul>
+ */
+public final class GraphColoring {
+    // Node count from which find() prefers the parallel colouring
+    public static final int PARALLEL_THRESHOLD = 100_000;
+    private static final int NONE = -1;
+
+    private GraphColoring() {
+    }
+
+    public static ColoringResult find(CompactGraph graph, TaskMonitor monitor) {
+        return graph.nodeCount() >= PARALLEL_THRESHOLD ? jonesPlassmann(graph, 1, monitor) : dsatur(graph, monitor);
+    }
+
+    public static ColoringResult dsatur(CompactGraph graph, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        int[] colors = new int[n];
+        Arrays.fill(colors, NONE);
+        if (n == 0) return new ColoringResult(colors, 0);
+
+        // Bucket lists linked through next/previous; saturation never exceeds the degree
+        int maxDegree = 0;
+        for (int v = 0; v < n; v++) maxDegree = Math.max(maxDegree, graph.degree(v));
+        int[] heads = new int[maxDegree + 1], next = new int[n], previous = new int[n], saturation = new int[n];
+        Arrays.fill(heads, NONE);
+        Integer[] byDegree = new Integer[n];
+        for (int v = 0; v < n; v++) byDegree[v] = v;
+        Arrays.sort(byDegree, (a, b) -> graph.degree(a) - graph.degree(b));
+        for (int v : byDegree) link(heads, next, previous, 0, v);
+
+        // Colours already present around each node, allocated on first use
+        BitSet[] neighbourColors = new BitSet[n];
+        int top = 0, colorCount = 0;
+        for (int colored = 0; colored < n; colored++) {
+            if ((colored & 0xFFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(colored, n);
+            }
+            while (heads[top] == NONE) top--;
+            int v = heads[top];
+            unlink(heads, next, previous, top, v);
+            int color = neighbourColors[v] == null ? 0 : neighbourColors[v].nextClearBit(0);
+            colors[v] = color;
+            colorCount = Math.max(colorCount, color + 1);
+            neighbourColors[v] = null;
+
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                int w = graph.target(arc);
+                if (colors[w] != NONE) continue;
+                if (neighbourColors[w] == null) neighbourColors[w] = new BitSet();
+                if (neighbourColors[w].get(color)) continue;
+                neighbourColors[w].set(color);
+                unlink(heads, next, previous, saturation[w], w);
+                link(heads, next, previous, ++saturation[w], w);
+                top = Math.max(top, saturation[w]);
+            }
+        }
+        return new ColoringResult(colors, colorCount);
+    }
+
+    private static void link(int[] heads, int[] next, int[] previous, int bucket, int v) {
+        next[v] = heads[bucket];
+        previous[v] = NONE;
+        if (heads[bucket] != NONE) previous[heads[bucket]] = v;
+        heads[bucket] = v;
+    }
+
+    private static void unlink(int[] heads, int[] next, int[] previous, int bucket, int v) {
+        if (previous[v] != NONE) next[previous[v]] = next[v];
+        else heads[bucket] = next[v];
+        if (next[v] != NONE) previous[next[v]] = previous[v];
+    }
+
+    public static ColoringResult jonesPlassmann(CompactGraph graph, long seed, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        int[] colors = new int[n];
+        Arrays.fill(colors, NONE);
+        int[] priorities = new int[n];
+        Random random = new Random(seed);
+        for (int v = 0; v < n; v++) priorities[v] = random.nextInt();
+
+        int colorCount = 0;
+        int[] remaining = IntStream.range(0, n).toArray();
+        while (remaining.length > 0) {
+            monitor.checkCancelled();
+            monitor.onProgress(n - remaining.length, n);
+            // Selected nodes are never adjacent, so each only reads colours fixed in earlier rounds
+            int[] selected = Arrays.stream(remaining).parallel()
+                    .filter(v -> outranksUncoloredNeighbours(graph, colors, priorities, v)).toArray();
+            int[] chosen = Arrays.stream(selected).parallel().map(v -> smallestFreeColor(graph, colors, v)).toArray();
+            for (int i = 0; i < selected.length; i++) {
+                colors[selected[i]] = chosen[i];
+                colorCount = Math.max(colorCount, chosen[i] + 1);
+            }
+            remaining = Arrays.stream(remaining).parallel().filter(v -> colors[v] == NONE).toArray();
+        }
+        return new ColoringResult(colors, colorCount);
+    }
+
+    // Ties in priority go to the higher index, so exactly one of two neighbours wins
+    private static boolean outranksUncoloredNeighbours(CompactGraph graph, int[] colors, int[] priorities, int v) {
+        for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+            int w = graph.target(arc);
+            if (w == v || colors[w] != NONE) continue;
+            if (priorities[w] > priorities[v] || (priorities[w] == priorities[v] && w > v)) return false;
+        }
+        return true;
+    }
+
+    // A node with d neighbours always finds a free colour below d + 1
+    private static int smallestFreeColor(CompactGraph graph, int[] colors, int v) {
+        boolean[] used = new boolean[graph.degree(v) + 1];
+        for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+            int color = colors[graph.target(arc)];
+            if (color != NONE && color < used.length) used[color] = true;
+        }
+        int color = 0;
+        while (used[color]) color++;
+        return color;
+    }
+}
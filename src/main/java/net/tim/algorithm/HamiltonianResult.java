@@ -0,0 +1,13 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+
+// A Hamiltonian path or cycle as node ids in visiting order plus the edge ids between them
+public record HamiltonianResult(int[] nodes, int[] edges, boolean cycle, long weight) {
+
+    static HamiltonianResult of(CompactGraph graph, int[] nodes, int[] edges, boolean cycle) {
+        long weight = 0;
+        for (int edge : edges) weight += graph.edgeWeight(edge);
+        return new HamiltonianResult(nodes, edges, cycle, weight);
+    }
+}
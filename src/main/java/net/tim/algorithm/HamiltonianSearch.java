@@ -0,0 +1,353 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.GraphTraversal;
+import net.tim.model.TaskMonitor;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Backtracking search for Hamiltonian paths and cycles. Start nodes (for paths) or first steps (for cycles) are
+ * searched in parallel on the common ForkJoinPool; the first worker to succeed stops all others.
+ * Each step is pruned by degree and reachability checks on the unvisited nodes, and successors are tried
+ * fewest-onward-options first. Directed edges are only followed forwards. Before searching, a cycle needs the graph
+ * to be strongly connected and a path needs it to be connected ignoring direction.
+ */
+public final class HamiltonianSearch {
+    private static final int CHECK_INTERVAL = 255;
+
+    private final CompactGraph graph;
+    private final TaskMonitor monitor;
+    private final int n;
+    private final int[][] successors;
+    private final int[][] successorEdges;
+    private final int[][] predecessors;
+    private final GraphTraversal traversal;
+    private final AtomicReference<HamiltonianResult> found = new AtomicReference<>();
+    private final AtomicInteger finishedTasks = new AtomicInteger();
+
+    private HamiltonianSearch(CompactGraph graph, TaskMonitor monitor) {
+        this.graph = graph;
+        this.monitor = monitor;
+        this.n = graph.nodeCount();
+        this.successors = new int[n][];
+        this.successorEdges = new int[n][];
+        this.predecessors = new int[n][];
+        this.traversal = new GraphTraversal(graph);
+        buildAdjacency();
+    }
+
+    /** A Hamiltonian cycle if there is one, otherwise a Hamiltonian path, otherwise null. */
+    public static HamiltonianResult find(CompactGraph graph, TaskMonitor monitor) {
+        HamiltonianSearch search = new HamiltonianSearch(graph, monitor);
+        HamiltonianResult cycle = search.searchCycle();
+        if (cycle != null) return cycle;
+        search.finishedTasks.set(0);
+        return search.searchPath();
+    }
+
+    public static HamiltonianResult findCycle(CompactGraph graph, TaskMonitor monitor) {
+        return new HamiltonianSearch(graph, monitor).searchCycle();
+    }
+
+    public static HamiltonianResult findPath(CompactGraph graph, TaskMonitor monitor) {
+        return new HamiltonianSearch(graph, monitor).searchPath();
+    }
+
+    // Distinct forward neighbours without self-loops; among parallel edges the lightest one is kept
+    private void buildAdjacency() {
+        int[] slotOf = new int[n];
+        Arrays.fill(slotOf, -1);
+        int[] predecessorCounts = new int[n];
+        int[] targets = new int[16], edges = new int[16];
+        for (int v = 0; v < n; v++) {
+            int count = 0;
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                int target = graph.target(arc);
+                if (graph.isReverse(arc) || target == v) continue;
+                int edge = graph.arcEdge(arc);
+                if (slotOf[target] >= 0) {
+                    if (graph.edgeWeight(edge) < graph.edgeWeight(edges[slotOf[target]])) edges[slotOf[target]] = edge;
+                    continue;
+                }
+                if (count == targets.length) {
+                    targets = Arrays.copyOf(targets, count * 2);
+                    edges = Arrays.copyOf(edges, count * 2);
+                }
+                slotOf[target] = count;
+                targets[count] = target;
+                edges[count++] = edge;
+            }
+            successors[v] = Arrays.copyOf(targets, count);
+            successorEdges[v] = Arrays.copyOf(edges, count);
+            for (int i = 0; i < count; i++) {
+                slotOf[targets[i]] = -1;
+                predecessorCounts[targets[i]]++;
+            }
+        }
+        for (int v = 0; v < n; v++) predecessors[v] = new int[predecessorCounts[v]];
+        Arrays.fill(predecessorCounts, 0);
+        for (int v = 0; v < n; v++) {
+            for (int target : successors[v]) predecessors[target][predecessorCounts[target]++] = v;
+        }
+    }
+
+    private HamiltonianResult searchCycle() {
+        if (n == 0) return null;
+        if (n == 1) return singleNodeCycle();
+        if (n == 2) return twoNodeCycle();
+        int start = 0;
+        for (int v = 0; v < n; v++) {
+            if (successors[v].length == 0 || predecessors[v].length == 0) return null;
+            if (successors[v].length < successors[start].length) start = v;
+        }
+        if (traversal.stronglyConnectedComponents(new int[n]) > 1) return null;
+
+        List<Searcher> tasks = new ArrayList<>();
+        for (int i = 0; i < successors[start].length; i++) {
+            tasks.add(new Searcher(true, start, successors[start][i], successorEdges[start][i], successors[start].length));
+        }
+        return run(tasks);
+    }
+
+    private HamiltonianResult searchPath() {
+        if (n == 0) return null;
+        if (n == 1) return HamiltonianResult.of(graph, new int[]{0}, new int[0], false);
+        if (traversal.depthFirst(0, false) < n) return null;
+
+        int forcedStart = -1, deadEnds = 0;
+        for (int v = 0; v < n; v++) {
+            if (predecessors[v].length == 0) {
+                if (forcedStart >= 0) return null;
+                forcedStart = v;
+            }
+            if (successors[v].length == 0 && ++deadEnds > 1) return null;
+        }
+        // Without directed edges a path can be reversed, so a node with a single neighbour is a sufficient start
+        if (forcedStart < 0 && !graph.hasDirectedEdges()) {
+            for (int v = 0; v < n && forcedStart < 0; v++) {
+                if (successors[v].length == 1) forcedStart = v;
+            }
+        }
+
+        List<Searcher> tasks = new ArrayList<>();
+        if (forcedStart >= 0) {
+            tasks.add(new Searcher(false, forcedStart, -1, -1, 1));
+        } else {
+            Integer[] order = new Integer[n];
+            for (int v = 0; v < n; v++) order[v] = v;
+            Arrays.sort(order, (a, b) -> Integer.compare(successors[a].length, successors[b].length));
+            for (int v : order) tasks.add(new Searcher(false, v, -1, -1, n));
+        }
+        return run(tasks);
+    }
+
+    private HamiltonianResult run(List<Searcher> tasks) {
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        monitor.checkCancelled();
+        return found.get();
+    }
+
+    private boolean stopRequested() {
+        return found.get() != null || monitor.isCancelled();
+    }
+
+    private HamiltonianResult singleNodeCycle() {
+        for (int arc = graph.firstArc(0); arc < graph.endArc(0); arc++) {
+            if (graph.target(arc) == 0 && !graph.isReverse(arc)) {
+                return HamiltonianResult.of(graph, new int[]{0}, new int[]{graph.arcEdge(arc)}, true);
+            }
+        }
+        return null;
+    }
+
+    // Going 0 -> 1 -> 0 needs two different edges, otherwise it is just one edge walked twice
+    private HamiltonianResult twoNodeCycle() {
+        for (int there = graph.firstArc(0); there < graph.endArc(0); there++) {
+            if (graph.target(there) != 1 || graph.isReverse(there)) continue;
+            for (int back = graph.firstArc(1); back < graph.endArc(1); back++) {
+                if (graph.target(back) == 0 && !graph.isReverse(back) && graph.arcEdge(back) != graph.arcEdge(there)) {
+                    return HamiltonianResult.of(graph, new int[]{0, 1},
+                            new int[]{graph.arcEdge(there), graph.arcEdge(back)}, true);
+                }
+            }
+        }
+        return null;
+    }
+
+    // Iterative depth-first search from a fixed prefix; one instance per parallel subtree.
+    // Working arrays are allocated in compute() so queued tasks stay small.
+    private final class Searcher extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+        private final boolean cycle;
+        private final int start;
+        private final int second;
+        private final int secondEdge;
+        private final int taskCount;
+        private int prefixLength;
+        private int[] path, pathEdges, position, queue;
+        private int[][] candidates, candidateEdges;
+        private boolean[] visited, reached;
+        private int steps;
+
+        Searcher(boolean cycle, int start, int second, int secondEdge, int taskCount) {
+            this.cycle = cycle;
+            this.start = start;
+            this.second = second;
+            this.secondEdge = secondEdge;
+            this.taskCount = taskCount;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                if (stopRequested()) return;
+                path = new int[n];
+                pathEdges = new int[n];
+                position = new int[n];
+                queue = new int[n];
+                candidates = new int[n][];
+                candidateEdges = new int[n][];
+                visited = new boolean[n];
+                reached = new boolean[n];
+                path[0] = start;
+                visited[start] = true;
+                prefixLength = 1;
+                if (second >= 0) {
+                    path[1] = second;
+                    pathEdges[1] = secondEdge;
+                    visited[second] = true;
+                    prefixLength = 2;
+                }
+                search();
+            } finally {
+                monitor.onProgress(finishedTasks.incrementAndGet(), taskCount);
+            }
+        }
+
+        private void search() {
+            int depth = prefixLength - 1;
+            if (!isFeasible(path[depth])) return;
+            if (complete(depth)) return;
+            expand(depth);
+            while (depth >= prefixLength - 1) {
+                if ((++steps & CHECK_INTERVAL) == 0 && stopRequested()) return;
+                int[] options = candidates[depth];
+                if (position[depth] == options.length) {
+                    if (depth >= prefixLength) visited[path[depth]] = false;
+                    depth--;
+                    continue;
+                }
+                int next = options[position[depth]];
+                int edge = candidateEdges[depth][position[depth]++];
+                visited[next] = true;
+                path[depth + 1] = next;
+                pathEdges[depth + 1] = edge;
+                if (!isFeasible(next)) {
+                    visited[next] = false;
+                    continue;
+                }
+                depth++;
+                if (complete(depth)) return;
+                expand(depth);
+            }
+        }
+
+        private boolean complete(int depth) {
+            if (depth != n - 1) return false;
+            int last = path[depth];
+            if (!cycle) {
+                found.compareAndSet(null, HamiltonianResult.of(graph, path.clone(), Arrays.copyOfRange(pathEdges, 1, n), false));
+                return true;
+            }
+            for (int i = 0; i < successors[last].length; i++) {
+                if (successors[last][i] == start) {
+                    int[] edges = Arrays.copyOfRange(pathEdges, 1, n + 1);
+                    edges[n - 1] = successorEdges[last][i];
+                    found.compareAndSet(null, HamiltonianResult.of(graph, path.clone(), edges, true));
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Unvisited successors ordered by how many unvisited successors they have themselves (Warnsdorff)
+        private void expand(int depth) {
+            int current = path[depth];
+            int[] next = successors[current], edges = successorEdges[current];
+            int count = 0;
+            int[] options = new int[next.length], optionEdges = new int[next.length], scores = new int[next.length];
+            for (int i = 0; i < next.length; i++) {
+                if (visited[next[i]]) continue;
+                int score = 0;
+                for (int onward : successors[next[i]]) if (!visited[onward]) score++;
+                int j = count++;
+                while (j > 0 && scores[j - 1] > score) {
+                    options[j] = options[j - 1];
+                    optionEdges[j] = optionEdges[j - 1];
+                    scores[j] = scores[j - 1];
+                    j--;
+                }
+                options[j] = next[i];
+                optionEdges[j] = edges[i];
+                scores[j] = score;
+            }
+            candidates[depth] = count == options.length ? options : Arrays.copyOf(options, count);
+            candidateEdges[depth] = optionEdges;
+            position[depth] = 0;
+        }
+
+        // Every unvisited node still needs a way in and a way out, and must be reachable from the current node
+        private boolean isFeasible(int current) {
+            int remaining = 0, deadEnds = 0;
+            for (int u = 0; u < n; u++) {
+                if (visited[u]) continue;
+                remaining++;
+                boolean hasIn = false;
+                for (int p : predecessors[u]) {
+                    if (!visited[p] || p == current) {
+                        hasIn = true;
+                        break;
+                    }
+                }
+                if (!hasIn) return false;
+                boolean hasOut = false;
+                for (int s : successors[u]) {
+                    if (!visited[s] || (cycle && s == start)) {
+                        hasOut = true;
+                        break;
+                    }
+                }
+                if (!hasOut && (cycle || ++deadEnds > 1)) return false;
+            }
+            if (remaining == 0) return true;
+
+            Arrays.fill(reached, false);
+            int head = 0, tail = 0, seen = 0;
+            queue[tail++] = current;
+            while (head < tail) {
+                int v = queue[head++];
+                for (int s : successors[v]) {
+                    if (visited[s] || reached[s]) continue;
+                    reached[s] = true;
+                    seen++;
+                    queue[tail++] = s;
+                }
+            }
+            return seen == remaining;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.TaskMonitor;
+
+import java.util.Arrays;
+
+/**
+ * Held-Karp dynamic programming over subsets for Hamiltonian cycles. Node 0 is the fixed start, so subsets only
+ * range over the remaining {@code n - 1} nodes. {@link #findCycle} keeps one int bitset of possible end nodes per
+ * subset; {@link #shortestCycle} keeps a cost per subset and end node and returns the minimum-weight cycle.
+ * Directed edges are only followed forwards.
+ */
+public final class HeldKarp {
+    // 2^24 int bitsets, 64 MB
+    public static final int MAX_NODES = 25;
+    // 2^19 * 19 long costs, 80 MB
+    public static final int MAX_WEIGHTED_NODES = 20;
+    private static final int CHECK_INTERVAL = 4095;
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+
+    private final CompactGraph graph;
+    private final int n;
+    private final int[][] edgeBetween;
+
+    private HeldKarp(CompactGraph graph) {
+        this.graph = graph;
+        this.n = graph.nodeCount();
+        this.edgeBetween = new int[n][n];
+        for (int[] row : edgeBetween) Arrays.fill(row, -1);
+        for (int v = 0; v < n; v++) {
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                if (graph.isReverse(arc)) continue;
+                int target = graph.target(arc), edge = graph.arcEdge(arc);
+                int known = edgeBetween[v][target];
+                if (known < 0 || graph.edgeWeight(edge) < graph.edgeWeight(known)) edgeBetween[v][target] = edge;
+            }
+        }
+    }
+
+    public static HamiltonianResult findCycle(CompactGraph graph, TaskMonitor monitor) {
+        if (graph.nodeCount() > MAX_NODES) throw new IllegalArgumentException("Too many nodes for Held-Karp: " + graph.nodeCount());
+        if (graph.nodeCount() < 3) return HamiltonianSearch.findCycle(graph, monitor);
+        return new HeldKarp(graph).reachableCycle(monitor);
+    }
+
+    public static HamiltonianResult shortestCycle(CompactGraph graph, TaskMonitor monitor) {
+        if (graph.nodeCount() > MAX_WEIGHTED_NODES) throw new IllegalArgumentException("Too many nodes for weighted Held-Karp: " + graph.nodeCount());
+        if (graph.nodeCount() < 3) return HamiltonianSearch.findCycle(graph, monitor);
+        return new HeldKarp(graph).cheapestCycle(monitor);
+    }
+
+    // Bit j stands for node j + 1
+    private boolean hasEdge(int fromBit, int toBit) {
+        return edgeBetween[fromBit + 1][toBit + 1] >= 0;
+    }
+
+    private HamiltonianResult reachableCycle(TaskMonitor monitor) {
+        int m = n - 1, full = (1 << m) - 1;
+        int[] predecessors = new int[m];
+        int closers = 0;
+        for (int k = 0; k < m; k++) {
+            for (int j = 0; j < m; j++) if (j != k && hasEdge(j, k)) predecessors[k] |= 1 << j;
+            if (edgeBetween[k + 1][0] >= 0) closers |= 1 << k;
+        }
+
+        int[] ends = new int[full + 1];
+        for (int k = 0; k < m; k++) if (edgeBetween[0][k + 1] >= 0) ends[1 << k] = 1 << k;
+        for (int mask = 1; mask < full; mask++) {
+            if ((mask & CHECK_INTERVAL) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(mask, full);
+            }
+            int reached = ends[mask];
+            if (reached == 0) continue;
+            for (int rest = full & ~mask; rest != 0; rest &= rest - 1) {
+                int k = Integer.numberOfTrailingZeros(rest);
+                if ((reached & predecessors[k]) != 0) ends[mask | 1 << k] |= 1 << k;
+            }
+        }
+        if ((ends[full] & closers) == 0) return null;
+
+        int[] nodes = new int[n], edges = new int[n];
+        int mask = full, last = Integer.numberOfTrailingZeros(ends[full] & closers);
+        edges[n - 1] = edgeBetween[last + 1][0];
+        for (int position = n - 1; position > 0; position--) {
+            nodes[position] = last + 1;
+            mask ^= 1 << last;
+            int previous = mask == 0 ? -1 : Integer.numberOfTrailingZeros(ends[mask] & predecessors[last]);
+            edges[position - 1] = edgeBetween[previous + 1][last + 1];
+            last = previous;
+        }
+        return HamiltonianResult.of(graph, nodes, edges, true);
+    }
+
+    private HamiltonianResult cheapestCycle(TaskMonitor monitor) {
+        int m = n - 1, full = (1 << m) - 1;
+        long[] cost = new long[(full + 1) * m];
+        Arrays.fill(cost, UNREACHABLE);
+        for (int k = 0; k < m; k++) {
+            int edge = edgeBetween[0][k + 1];
+            if (edge >= 0) cost[(1 << k) * m + k] = graph.edgeWeight(edge);
+        }
+        for (int mask = 1; mask < full; mask++) {
+            if ((mask & CHECK_INTERVAL) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(mask, full);
+            }
+            for (int members = mask; members != 0; members &= members - 1) {
+                int j = Integer.numberOfTrailingZeros(members);
+                long base = cost[mask * m + j];
+                if (base == UNREACHABLE) continue;
+                for (int rest = full & ~mask; rest != 0; rest &= rest - 1) {
+                    int k = Integer.numberOfTrailingZeros(rest);
+                    int edge = edgeBetween[j + 1][k + 1];
+                    if (edge < 0) continue;
+                    int slot = (mask | 1 << k) * m + k;
+                    long candidate = base + graph.edgeWeight(edge);
+                    if (candidate < cost[slot]) cost[slot] = candidate;
+                }
+            }
+        }
+
+        long best = UNREACHABLE;
+        int last = -1;
+        for (int j = 0; j < m; j++) {
+            int edge = edgeBetween[j + 1][0];
+            long total = cost[full * m + j];
+            if (edge < 0 || total == UNREACHABLE) continue;
+            total += graph.edgeWeight(edge);
+            if (total < best) {
+                best = total;
+                last = j;
+            }
+        }
+        if (last < 0) return null;
+
+        // Walk back by finding a predecessor whose cost plus the connecting edge reproduces the stored cost
+        int[] nodes = new int[n], edges = new int[n];
+        int mask = full;
+        edges[n - 1] = edgeBetween[last + 1][0];
+        for (int position = n - 1; position > 0; position--) {
+            nodes[position] = last + 1;
+            long target = cost[mask * m + last];
+            mask ^= 1 << last;
+            int previous = -1;
+            for (int members = mask; members != 0 && previous < 0; members &= members - 1) {
+                int i = Integer.numberOfTrailingZeros(members);
+                int edge = edgeBetween[i + 1][last + 1];
+                long before = cost[mask * m + i];
+                if (edge >= 0 && before != UNREACHABLE && before + graph.edgeWeight(edge) == target) previous = i;
+            }
+            edges[position - 1] = edgeBetween[previous + 1][last + 1];
+            last = previous;
+        }
+        return HamiltonianResult.of(graph, nodes, edges, true);
+    }
+}
@@ -0,0 +1,96 @@
+package net.tim.algorithm;
+
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of node ids with long priorities, backed by primitive arrays. Each id knows its heap position,
+ * so lowering a priority is O(log n) without the stale duplicates a {@code PriorityQueue} would accumulate.
+ */
+final class IndexedMinHeap {
+    private final int[] heap;
+    private final int[] positions;
+    private final long[] keys;
+    private int size;
+
+    IndexedMinHeap(int capacity) {
+        heap = new int[capacity];
+        positions = new int[capacity];
+        keys = new long[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(int id) {
+        return positions[id] >= 0;
+    }
+
+    long key(int id) {
+        return keys[id];
+    }
+
+    /** Inserts the id, or lowers its priority if it is queued with a higher one. */
+    void push(int id, long key) {
+        int position = positions[id];
+        if (position < 0) {
+            position = size++;
+            heap[position] = id;
+            positions[id] = position;
+        } else if (key >= keys[id]) {
+            return;
+        }
+        keys[id] = key;
+        siftUp(position);
+    }
+
+    int pop() {
+        int top = heap[0];
+        positions[top] = -1;
+        if (--size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            positions[last] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) positions[heap[i]] = -1;
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        int id = heap[position];
+        long key = keys[id];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            int parentId = heap[parent];
+            if (keys[parentId] <= key) break;
+            heap[position] = parentId;
+            positions[parentId] = position;
+            position = parent;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    private void siftDown(int position) {
+        int id = heap[position];
+        long key = keys[id];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && keys[heap[child + 1]] < keys[heap[child]]) child++;
+            int childId = heap[child];
+            if (keys[childId] >= key) break;
+            heap[position] = childId;
+            positions[childId] = position;
+            position = child;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
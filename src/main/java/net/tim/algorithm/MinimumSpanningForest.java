@@ -0,0 +1,113 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.TaskMonitor;
+
+import java.util.Arrays;
+
+/**
+ * Minimum spanning forests, one tree per connected component. Edge direction is ignored and self-loops never join
+ * the forest; negative weights are fine.
+ * <ul>
+ * <li>Kruskal packs weight and edge id into one {@code long} per edge, sorts those primitively and joins components
+ * through a union-find over an {@code int[]} with union by size and path halving.</li>
+ * <li>Prim grows each tree from its first node with an {@link IndexedMinHeap} keyed by the lightest edge into the
+ * tree, in O(E log V) without sorting all edges first, which pays off once there are many edges per node.</li>
+ * </ul>
+ */
+public final class MinimumSpanningForest {
+    // Average degree from which find() prefers Prim
+    static final int PRIM_MIN_DEGREE = 16;
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private MinimumSpanningForest() {
+    }
+
+    public static SpanningForestResult find(CompactGraph graph, TaskMonitor monitor) {
+        long arcs = 2L * graph.edgeCount();
+        return arcs >= (long) PRIM_MIN_DEGREE * graph.nodeCount() ? prim(graph, monitor) : kruskal(graph, monitor);
+    }
+
+    public static SpanningForestResult kruskal(CompactGraph graph, TaskMonitor monitor) {
+        int n = graph.nodeCount(), m = graph.edgeCount();
+        // Weight in the high half keeps the signed order, the id in the low half breaks ties
+        long[] keys = new long[m];
+        for (int e = 0; e < m; e++) keys[e] = (long) graph.edgeWeight(e) << 32 | e;
+        if (m >= PARALLEL_SORT_THRESHOLD) Arrays.parallelSort(keys);
+        else Arrays.sort(keys);
+
+        int[] parents = new int[n], sizes = new int[n];
+        for (int v = 0; v < n; v++) {
+            parents[v] = v;
+            sizes[v] = 1;
+        }
+        int[] edges = new int[Math.max(0, n - 1)];
+        int count = 0;
+        long weight = 0;
+        for (int i = 0; i < m && count < edges.length; i++) {
+            if ((i & 0xFFFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(i, m);
+            }
+            int e = (int) keys[i];
+            int a = find(parents, graph.edgeSource(e)), b = find(parents, graph.edgeTarget(e));
+            if (a == b) continue;
+            if (sizes[a] < sizes[b]) {
+                int swap = a;
+                a = b;
+                b = swap;
+            }
+            parents[b] = a;
+            sizes[a] += sizes[b];
+            edges[count++] = e;
+            weight += graph.edgeWeight(e);
+        }
+        return new SpanningForestResult(Arrays.copyOf(edges, count), weight, n - count);
+    }
+
+    private static int find(int[] parents, int v) {
+        while (parents[v] != v) {
+            parents[v] = parents[parents[v]];
+            v = parents[v];
+        }
+        return v;
+    }
+
+    public static SpanningForestResult prim(CompactGraph graph, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        boolean[] inTree = new boolean[n];
+        long[] best = new long[n];
+        int[] viaEdges = new int[n];
+        Arrays.fill(best, Long.MAX_VALUE);
+        Arrays.fill(viaEdges, -1);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        int[] edges = new int[Math.max(0, n - 1)];
+        int count = 0, trees = 0, added = 0;
+        long weight = 0;
+        for (int root = 0; root < n; root++) {
+            if (inTree[root]) continue;
+            trees++;
+            heap.push(root, 0);
+            while (!heap.isEmpty()) {
+                int v = heap.pop();
+                inTree[v] = true;
+                if ((++added & 0xFFF) == 0) {
+                    monitor.checkCancelled();
+                    monitor.onProgress(added, n);
+                }
+                if (viaEdges[v] >= 0) {
+                    edges[count++] = viaEdges[v];
+                    weight += best[v];
+                }
+                for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                    int w = graph.target(arc);
+                    if (inTree[w] || graph.weight(arc) >= best[w]) continue;
+                    best[w] = graph.weight(arc);
+                    viaEdges[w] = graph.arcEdge(arc);
+                    heap.push(w, best[w]);
+                }
+            }
+        }
+        return new SpanningForestResult(Arrays.copyOf(edges, count), weight, trees);
+    }
+}
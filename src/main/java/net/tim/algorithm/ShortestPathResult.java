@@ -0,0 +1,11 @@
+package net.tim.algorithm;
+
+// A shortest route as node ids from source to target plus the edge ids between them
+public record ShortestPathResult(int[] nodes, int[] edges, long distance) {
+    /** Returned instead of a route when the source reaches a negative cycle, so no route is shortest. */
+    public static final ShortestPathResult NEGATIVE_CYCLE = new ShortestPathResult(new int[0], new int[0], Long.MIN_VALUE);
+
+    public boolean isNegativeCycle() {
+        return this == NEGATIVE_CYCLE;
+    }
+}
@@ -0,0 +1,158 @@
+package net.tim.algorithm;
+
+import net.tim.model.CompactGraph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+
+import java.util.Arrays;
+
+/**
+ * Single-pair shortest paths. Directed edges are only followed forwards, undirected edges both ways.
+ * <ul>
+ * <li>Dijkstra with an {@link IndexedMinHeap}, O((V + E) log V), for non-negative weights.</li>
+ * <li>A*, the same search guided by the straight-line distance to the target. Weights are arbitrary numbers rather
+ * than lengths, so the distance is scaled by the smallest weight-per-pixel ratio of any edge, which keeps the
+ * heuristic admissible and consistent on every graph.</li>
+ * <li>Bellman-Ford in O(V * E) for graphs with negative weights, stopping early once a round changes nothing.
+ * An undirected edge with a negative weight is a negative cycle by itself.</li>
+ * </ul>
+ * All of them return null if the target cannot be reached. Bellman-Ford returns
+ * {@link ShortestPathResult#NEGATIVE_CYCLE} for a reachable target when the source also reaches a negative cycle.
+ */
+public final class ShortestPaths {
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    private ShortestPaths() {
+    }
+
+    /** Picks Bellman-Ford if any weight is negative, otherwise A*. */
+    public static ShortestPathResult find(CompactGraph graph, int source, int target, TaskMonitor monitor) {
+        for (int e = 0; e < graph.edgeCount(); e++) {
+            if (graph.edgeWeight(e) < 0) return bellmanFord(graph, source, target, monitor);
+        }
+        return aStar(graph, source, target, monitor);
+    }
+
+    public static ShortestPathResult dijkstra(CompactGraph graph, int source, int target, TaskMonitor monitor) {
+        return search(graph, source, target, null, null, 0, monitor);
+    }
+
+    public static ShortestPathResult aStar(CompactGraph graph, int source, int target, TaskMonitor monitor) {
+        // Positions are copied once so the heuristic is a few arithmetic operations per push
+        int n = graph.nodeCount();
+        double[] xs = new double[n], ys = new double[n];
+        for (int v = 0; v < n; v++) {
+            Node node = graph.node(v);
+            xs[v] = node.getX();
+            ys[v] = node.getY();
+        }
+        return search(graph, source, target, xs, ys, heuristicScale(graph, xs, ys), monitor);
+    }
+
+    // Largest factor s with s * length(e) <= weight(e) for every edge, so s * distance never overestimates
+    private static double heuristicScale(CompactGraph graph, double[] xs, double[] ys) {
+        double scale = Double.POSITIVE_INFINITY;
+        for (int from = 0; from < graph.nodeCount(); from++) {
+            for (int arc = graph.firstArc(from); arc < graph.endArc(from); arc++) {
+                if (graph.isReverse(arc)) continue;
+                int to = graph.target(arc);
+                double dx = xs[to] - xs[from], dy = ys[to] - ys[from];
+                double length = Math.sqrt(dx * dx + dy * dy);
+                if (length > 0) scale = Math.min(scale, graph.weight(arc) / length);
+            }
+        }
+        // Leaves room for rounding in the products below
+        return Double.isInfinite(scale) ? 0 : Math.max(0, scale * (1 - 1e-9));
+    }
+
+    // With a scale of 0 the estimate vanishes and this is plain Dijkstra
+    private static ShortestPathResult search(CompactGraph graph, int source, int target, double[] xs, double[] ys,
+                                             double scale, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        long[] distances = new long[n];
+        int[] viaEdges = new int[n];
+        Arrays.fill(distances, UNREACHED);
+        Arrays.fill(viaEdges, -1);
+        IndexedMinHeap heap = new IndexedMinHeap(n);
+        distances[source] = 0;
+        heap.push(source, 0);
+        int settled = 0;
+        while (!heap.isEmpty()) {
+            int v = heap.pop();
+            if (v == target) return route(graph, source, target, distances[target], viaEdges);
+            if ((++settled & 0xFFF) == 0) {
+                monitor.checkCancelled();
+                monitor.onProgress(settled, n);
+            }
+            long distance = distances[v];
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                if (graph.isReverse(arc)) continue;
+                int w = graph.target(arc);
+                long candidate = distance + graph.weight(arc);
+                if (candidate >= distances[w]) continue;
+                distances[w] = candidate;
+                viaEdges[w] = graph.arcEdge(arc);
+                heap.push(w, scale > 0 ? candidate + estimate(xs, ys, w, target, scale) : candidate);
+            }
+        }
+        return null;
+    }
+
+    private static long estimate(double[] xs, double[] ys, int node, int target, double scale) {
+        double dx = xs[node] - xs[target], dy = ys[node] - ys[target];
+        return (long) (scale * Math.sqrt(dx * dx + dy * dy));
+    }
+
+    public static ShortestPathResult bellmanFord(CompactGraph graph, int source, int target, TaskMonitor monitor) {
+        int n = graph.nodeCount();
+        long[] distances = new long[n];
+        int[] viaEdges = new int[n];
+        Arrays.fill(distances, UNREACHED);
+        Arrays.fill(viaEdges, -1);
+        distances[source] = 0;
+        // n - 1 rounds settle every shortest path; a change in round n means a reachable negative cycle
+        for (int round = 0; round < n; round++) {
+            monitor.checkCancelled();
+            monitor.onProgress(round, n);
+            boolean changed = false;
+            // Forward arcs cover each directed edge once and each undirected edge in both directions
+            for (int v = 0; v < n; v++) {
+                if (distances[v] == UNREACHED) continue;
+                for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                    if (graph.isReverse(arc)) continue;
+                    if (relax(distances, viaEdges, graph.arcEdge(arc), v, graph.target(arc), graph.weight(arc))) changed = true;
+                }
+            }
+            if (!changed) {
+                return distances[target] == UNREACHED ? null : route(graph, source, target, distances[target], viaEdges);
+            }
+        }
+        // Reachability is settled by now even though distances are not
+        return distances[target] == UNREACHED ? null : ShortestPathResult.NEGATIVE_CYCLE;
+    }
+
+    private static boolean relax(long[] distances, int[] viaEdges, int edge, int from, int to, int weight) {
+        if (distances[from] == UNREACHED || distances[from] + weight >= distances[to]) return false;
+        distances[to] = distances[from] + weight;
+        viaEdges[to] = edge;
+        return true;
+    }
+
+    private static ShortestPathResult route(CompactGraph graph, int source, int target, long distance, int[] viaEdges) {
+        int length = 0;
+        for (int v = target; v != source; v = otherEnd(graph, viaEdges[v], v)) length++;
+        int[] nodes = new int[length + 1], edges = new int[length];
+        int v = target;
+        nodes[length] = v;
+        for (int i = length - 1; i >= 0; i--) {
+            edges[i] = viaEdges[v];
+            v = otherEnd(graph, edges[i], v);
+            nodes[i] = v;
+        }
+        return new ShortestPathResult(nodes, edges, distance);
+    }
+
+    private static int otherEnd(CompactGraph graph, int edge, int node) {
+        return graph.edgeTarget(edge) == node ? graph.edgeSource(edge) : graph.edgeTarget(edge);
+    }
+}
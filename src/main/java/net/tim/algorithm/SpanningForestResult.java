@@ -0,0 +1,5 @@
+package net.tim.algorithm;
+
+/** Edge ids of a minimum spanning forest, its total weight and the number of trees, isolated nodes included. */
+public record SpanningForestResult(int[] edges, long weight, int trees) {
+}
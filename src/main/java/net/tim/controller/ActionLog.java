@@ -0,0 +1,106 @@
+package net.tim.controller;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Log of the actions recorded by the {@link GraphController}. Entries are handed to the listeners in order on a
+ * single background thread, so a slow listener (such as the console) never holds up an edit. At {@link Level#INFO}
+ * every undo entry is logged, with a batch as one entry; {@link Level#DEBUG} also logs the actions inside batches.
+ * While the level is {@link Level#OFF} or nobody listens, logging is a single field check.
+ * <p>
+ * The initial level comes from the {@code graph.actionLog} system property, in any case; an unknown value is
+ * reported and treated as OFF. When the level is anything but OFF the console listener is attached as well.
+ * <p>
+ * Each entry's message is formatted when the action is logged, on the thread that recorded it, so listeners never
+ * read the live nodes and edges the action refers to.
+ */
+public final class ActionLog {
+    public enum Level {OFF, INFO, DEBUG}
+
+    public record Entry(long timeMillis, Action action, String message, int historySize, boolean batched) {
+    }
+
+    @FunctionalInterface
+    public interface Listener {
+        void actionLogged(Entry entry);
+    }
+
+    public static final Listener CONSOLE = entry -> System.out.println("Action created: " + entry.message()
+            + " (history size " + entry.historySize() + ")");
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Level level;
+    private volatile boolean active;
+    private ExecutorService executor;
+
+    public ActionLog() {
+        this(parseLevel(System.getProperty("graph.actionLog")));
+        if (level != Level.OFF) addListener(CONSOLE);
+    }
+
+    public ActionLog(Level level) {
+        this.level = level;
+    }
+
+    static Level parseLevel(String value) {
+        if (value == null || value.isBlank()) return Level.OFF;
+        try {
+            return Level.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown graph.actionLog level '" + value + "', expected one of "
+                    + Arrays.toString(Level.values()) + "; logging is off");
+            return Level.OFF;
+        }
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public void setLevel(Level level) {
+        this.level = level;
+        updateActive();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+        updateActive();
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+        updateActive();
+    }
+
+    private void updateActive() {
+        active = level != Level.OFF && !listeners.isEmpty();
+    }
+
+    void log(Action action, int historySize, boolean batched) {
+        if (!active) return;
+        if (batched && level != Level.DEBUG) return;
+        Entry entry = new Entry(System.currentTimeMillis(), action, format(action), historySize, batched);
+        executor().execute(() -> listeners.forEach(listener -> listener.actionLogged(entry)));
+    }
+
+    private static String format(Action action) {
+        return action.type() + " " + action.node() + " " + action.edge() + " " + action.oldValue()
+                + " " + action.newValue();
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "action-log");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
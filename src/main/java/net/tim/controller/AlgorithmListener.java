@@ -0,0 +1,13 @@
+package net.tim.controller;
+
+// Callbacks from the AlgorithmService; all of them run on the Swing event dispatch thread
+public interface AlgorithmListener {
+    default void taskStarted(AlgorithmService.RunningTask task) {
+    }
+
+    default void taskProgress(AlgorithmService.RunningTask task, double fraction) {
+    }
+
+    default void taskFinished(AlgorithmService.RunningTask task) {
+    }
+}
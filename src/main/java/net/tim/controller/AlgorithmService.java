@@ -0,0 +1,189 @@
+package net.tim.controller;
+
+import net.tim.model.TaskMonitor;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs algorithms off the event dispatch thread. Each task computes its result on a worker thread against data it
+ * was handed up front, then applies that result to the model on the EDT in a single step. Listeners are told about
+ * start, progress and completion on the EDT.
+ */
+public class AlgorithmService {
+    public enum Outcome {RUNNING, COMPLETED, CANCELLED, FAILED}
+
+    private static final long PROGRESS_INTERVAL_NANOS = 50_000_000L;
+
+    private final ExecutorService workers;
+    private final List<AlgorithmListener> listeners = new CopyOnWriteArrayList<>();
+    private final List<RunningTask> runningTasks = new CopyOnWriteArrayList<>();
+
+    public AlgorithmService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public AlgorithmService(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "algorithm-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void addListener(AlgorithmListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(AlgorithmListener listener) {
+        listeners.remove(listener);
+    }
+
+    public List<RunningTask> getRunningTasks() {
+        return new ArrayList<>(runningTasks);
+    }
+
+    public void cancelAll() {
+        runningTasks.forEach(RunningTask::cancel);
+    }
+
+    public void shutdown() {
+        cancelAll();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Starts a task. {@code compute} runs on a worker and must not touch the live model;
+     * {@code apply} runs on the EDT with the result unless the task was cancelled first.
+     */
+    public <R> RunningTask submit(String name, Function<TaskMonitor, R> compute, Consumer<R> apply) {
+        return submit(name, compute, apply, failure -> {
+        });
+    }
+
+    /** Like {@link #submit(String, Function, Consumer)}, and {@code onFailure} runs on the EDT if the task fails. */
+    public <R> RunningTask submit(String name, Function<TaskMonitor, R> compute, Consumer<R> apply,
+                                  Consumer<Throwable> onFailure) {
+        RunningTask task = new RunningTask(name);
+        task.onFailure = onFailure;
+        runningTasks.add(task);
+        listeners.forEach(listener -> listener.taskStarted(task));
+        task.future = workers.submit(() -> run(task, compute, apply));
+        return task;
+    }
+
+    private <R> void run(RunningTask task, Function<TaskMonitor, R> compute, Consumer<R> apply) {
+        if (!task.started.compareAndSet(false, true)) return;
+        task.startNanos = System.nanoTime();
+        try {
+            task.checkCancelled();
+            R result = compute.apply(task);
+            task.elapsedNanos = System.nanoTime() - task.startNanos;
+            SwingUtilities.invokeLater(() -> {
+                if (task.isCancelled()) {
+                    finish(task, Outcome.CANCELLED, null);
+                    return;
+                }
+                try {
+                    apply.accept(result);
+                    finish(task, Outcome.COMPLETED, null);
+                } catch (Throwable e) {
+                    finish(task, Outcome.FAILED, e);
+                }
+            });
+        } catch (CancellationException e) {
+            task.elapsedNanos = System.nanoTime() - task.startNanos;
+            SwingUtilities.invokeLater(() -> finish(task, Outcome.CANCELLED, null));
+        } catch (Throwable e) {
+            // Any failure, errors included, has to finish the task or it would stay listed as running forever
+            task.elapsedNanos = System.nanoTime() - task.startNanos;
+            SwingUtilities.invokeLater(() -> finish(task, Outcome.FAILED, e));
+        }
+    }
+
+    private void finish(RunningTask task, Outcome outcome, Throwable failure) {
+        task.outcome = outcome;
+        task.failure = failure;
+        runningTasks.remove(task);
+        listeners.forEach(listener -> listener.taskFinished(task));
+        if (outcome == Outcome.FAILED) task.onFailure.accept(failure);
+    }
+
+    public final class RunningTask implements TaskMonitor {
+        private final String name;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean progressPending = new AtomicBoolean();
+        private Consumer<Throwable> onFailure;
+        private volatile boolean cancelled;
+        private volatile double progress;
+        private volatile long lastProgressNanos;
+        private volatile Future<?> future;
+        private volatile Outcome outcome = Outcome.RUNNING;
+        private volatile Throwable failure;
+        private long startNanos;
+        private volatile long elapsedNanos;
+
+        private RunningTask(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void cancel() {
+            cancelled = true;
+            // A task that never reached a worker has to be finished here, nobody else will
+            if (started.compareAndSet(false, true)) {
+                Future<?> queued = future;
+                if (queued != null) queued.cancel(false);
+                SwingUtilities.invokeLater(() -> finish(this, Outcome.CANCELLED, null));
+            }
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // Throttled: at most one EDT update per interval, so tight loops can report freely
+        @Override
+        public void onProgress(long done, long total) {
+            progress = total <= 0 ? 0 : Math.min(1.0, (double) done / total);
+            long now = System.nanoTime();
+            if (now - lastProgressNanos < PROGRESS_INTERVAL_NANOS || !progressPending.compareAndSet(false, true)) return;
+            lastProgressNanos = now;
+            SwingUtilities.invokeLater(() -> {
+                progressPending.set(false);
+                if (outcome == Outcome.RUNNING) listeners.forEach(listener -> listener.taskProgress(this, progress));
+            });
+        }
+
+        public double getProgress() {
+            return progress;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -1,412 +1,571 @@
 package net.tim.controller;
 
+import net.tim.algorithm.AllPairsShortestPaths;
+import net.tim.algorithm.ColoringResult;
+import net.tim.algorithm.DistanceMatrix;
+import net.tim.algorithm.EulerianResult;
+import net.tim.algorithm.EulerianTrail;
+import net.tim.algorithm.ForceLayout;
+import net.tim.algorithm.GraphColoring;
+import net.tim.algorithm.HamiltonianResult;
+import net.tim.algorithm.HamiltonianSearch;
+import net.tim.algorithm.HeldKarp;
+import net.tim.algorithm.MinimumSpanningForest;
+import net.tim.algorithm.ShortestPathResult;
+import net.tim.algorithm.ShortestPaths;
+import net.tim.algorithm.SpanningForestResult;
+import net.tim.model.CompactGraph;
 import net.tim.model.Edge;
 import net.tim.model.Graph;
+import net.tim.model.GraphConverter;
+import net.tim.model.GraphFormat;
 import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
 import net.tim.view.GraphPanel;
 
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 public class GraphController {
+    // Shortest gap between two animation frames of the auto layout
+    private static final long LAYOUT_FRAME_NANOS = 40_000_000L;
     private final Graph graph;
-    private final GraphPanel graphPanel;
-    private final Stack<Action> actionStack = new Stack<>();
+    private final UndoHistory history;
+    private final AlgorithmService algorithmService = new AlgorithmService();
+    private final ActionLog actionLog = new ActionLog();
+    // Actions recorded since beginBatch(), or null outside a batch
+    private List<Action> batch;
+    private int batchDepth;
 
     public GraphController(Graph graph, GraphPanel graphPanel) {
+        this(graph, graphPanel, new UndoHistory());
+    }
+
+    public GraphController(Graph graph, GraphPanel graphPanel, UndoHistory history) {
         this.graph = graph;
-        this.graphPanel = graphPanel;
+        this.history = history;
+        graph.addListener(graphPanel);
     }
 
     public void addNode(int x, int y, String name) {
         Node node = new Node(x, y, name);
-        graph.addNode(node.x, node.y, node.name);
-        actionStack.push(new Action(Action.ActionType.ADD_NODE, node, null, null, null));
-        logAction("ADD_NODE");
-        graphPanel.repaint();
+        graph.addNode(node);
+        record(new Action(Action.ActionType.ADD_NODE, node, null, null, null));
     }
 
     public void setNodeColor(Node node, Color color) {
-        Color oldColor = node.color;
-        node.color = color;
-        actionStack.push(new Action(Action.ActionType.SET_NODE_COLOR, node, null, oldColor, color));
-        logAction("SET_NODE_COLOR");
-        graphPanel.repaint();
+        Color oldColor = node.getColor();
+        node.setColor(color);
+        record(new Action(Action.ActionType.SET_NODE_COLOR, node, null, oldColor, color));
     }
 
     public void setEdgeColor(Edge edge, Color color) {
-        Color oldColor = edge.color;
-        edge.color = color;
-        actionStack.push(new Action(Action.ActionType.SET_EDGE_COLOR, null, edge, oldColor, color));
-        logAction("SET_EDGE_COLOR");
-        graphPanel.repaint();
+        Color oldColor = edge.getColor();
+        edge.setColor(color);
+        record(new Action(Action.ActionType.SET_EDGE_COLOR, null, edge, oldColor, color));
     }
 
     public void setEdgeWeight(Edge edge, int weight) {
-        int oldWeight = edge.weight;
-        edge.weight = weight;
-        actionStack.push(new Action(Action.ActionType.SET_EDGE_WEIGHT, null, edge, oldWeight, weight));
-        logAction("SET_EDGE_WEIGHT");
-        graphPanel.repaint();
+        int oldWeight = edge.getWeight();
+        edge.setWeight(weight);
+        record(new Action(Action.ActionType.SET_EDGE_WEIGHT, null, edge, oldWeight, weight));
     }
 
     public void renameNode(Node node, String newName) {
-        String oldName = node.name;
-        node.name = newName;
-        actionStack.push(new Action(Action.ActionType.RENAME_NODE, node, null, oldName, newName));
-        logAction("RENAME_NODE");
-        graphPanel.repaint();
+        String oldName = node.getName();
+        node.setName(newName);
+        record(new Action(Action.ActionType.RENAME_NODE, node, null, oldName, newName));
     }
 
     public void addEdge(Node from, Node to, boolean isDirected, int weight) {
-    Edge edge = new Edge(from, to, isDirected, weight);
-    graph.addEdge(edge.from, edge.to, isDirected, weight);
-    actionStack.push(new Action(Action.ActionType.ADD_EDGE, null, edge, null, null));
-    logAction("ADD_EDGE");
-    graphPanel.repaint();
-}
+        Edge edge = new Edge(from, to, isDirected, weight);
+        graph.addEdge(edge);
+        record(new Action(Action.ActionType.ADD_EDGE, null, edge, null, null));
+    }
 
     public void removeNode(Node node) {
-        graph.removeNode(node);
-        actionStack.push(new Action(Action.ActionType.REMOVE_NODE, node, null, null, null));
-        logAction("REMOVE_NODE");
-        graphPanel.repaint();
+        List<Edge> removedEdges = graph.removeNode(node);
+        record(new Action(Action.ActionType.REMOVE_NODE, node, null, removedEdges, null));
     }
 
     public void removeEdge(Edge edge) {
         graph.removeEdge(edge);
-        actionStack.push(new Action(Action.ActionType.REMOVE_EDGE, null, edge, null, null));
-        logAction("REMOVE_EDGE");
-        graphPanel.repaint();
+        record(new Action(Action.ActionType.REMOVE_EDGE, null, edge, null, null));
     }
 
     public void moveNode(Node node, int newX, int newY, int oldX, int oldY) {
-        node.x = newX;
-        node.y = newY;
-        actionStack.push(new Action(Action.ActionType.MOVE_NODE, node, null, new Point(oldX, oldY), new Point(newX, newY)));
-        logAction("MOVE_NODE");
-        graphPanel.repaint();
-    }
-
-    public void undo() {
-        if (!actionStack.isEmpty()) {
-            Action action = actionStack.pop();
-            switch (action.type()) {
-                case ADD_NODE -> graph.removeNode(action.node());
-                case REMOVE_NODE -> graph.addNode(action.node().x, action.node().y, action.node().name);
-                case ADD_EDGE -> graph.removeEdge(action.edge());
-                case REMOVE_EDGE -> graph.addEdge(action.edge().from, action.edge().to);
-                case SET_NODE_COLOR -> action.node().color = (Color) action.oldValue();
-                case SET_EDGE_COLOR -> action.edge().color = (Color) action.oldValue();
-                case SET_EDGE_WEIGHT -> action.edge().weight = (int) action.oldValue();
-                case RENAME_NODE -> action.node().name = (String) action.oldValue();
-                case MOVE_NODE -> {
-                    Point oldPosition = (Point) action.oldValue();
-                    action.node().x = oldPosition.x;
-                    action.node().y = oldPosition.y;
-                }
-            }
-            graphPanel.repaint();
-        }
-    }
-
-    public void saveGraph(File file) throws IOException {
-        graph.saveToFile(file);
+        node.moveTo(newX, newY);
+        record(new Action(Action.ActionType.MOVE_NODE, node, null, new Point(oldX, oldY), new Point(newX, newY)));
     }
 
-    public void loadGraph(File file) throws IOException {
-        graph.loadFromFile(file);
-        graphPanel.repaint();
+    /** Starts a gesture such as a drag; the moves it records until {@link #endGesture()} are undone as one step. */
+    public void beginGesture() {
+        history.beginGesture();
     }
 
-    public void resetGraph() {
-        graph.clear();
-        graphPanel.repaint();
+    public void endGesture() {
+        history.endGesture();
     }
 
-    public void resetColors() {
-        graph.getNodes().forEach(node -> node.color = Color.BLACK);
-        graph.getEdges().forEach(edge -> edge.color = Color.BLACK);
-        graphPanel.repaint();
-    }
-
-    public List<Node> getNodes() {
-        return graph.getNodes();
+    /**
+     * Starts collecting changes into one undo entry. The graph announces the batch to its listeners, so the panel
+     * only keeps its index in step until the matching {@link #commitBatch()} and then repaints once. Batches nest; only the outermost commit takes effect.
+     */
+    public void beginBatch() {
+        if (batchDepth++ == 0) {
+            batch = new ArrayList<>();
+            graph.beginBatch();
+        }
     }
 
-    public List<Edge> getEdges() {
-        return graph.getEdges();
+    public void commitBatch() {
+        if (batchDepth == 0) throw new IllegalStateException("No batch in progress");
+        if (--batchDepth > 0) return;
+        List<Action> actions = batch;
+        batch = null;
+        if (!actions.isEmpty()) {
+            Action action = new Action(Action.ActionType.BATCH, null, null, actions, null);
+            history.push(action);
+            actionLog.log(action, history.size(), false);
+        }
+        graph.endBatch();
     }
 
-    public void markEulerian() {
-        if (isEulerianCircuit()) {
-            markEulerianCircuit();
-        } else if (isEulerianPath()) {
-            markEulerianPath();
+    private void record(Action action) {
+        if (batch != null) {
+            batch.add(action);
+            actionLog.log(action, history.size(), true);
+            return;
         }
+        history.push(action);
+        actionLog.log(action, history.size(), false);
     }
 
-    private boolean isEulerianCircuit() {
-        if (isConnected()) return false;
-        return graph.getNodes().stream().allMatch(node -> graph.getEdges().stream().filter(e -> e.from.equals(node) || e.to.equals(node)).count() % 2 == 0);
+    public void undo() {
+        Action action = history.undo();
+        if (action != null) undo(action);
     }
 
-    private boolean isEulerianPath() {
-        if (isConnected()) return false;
-        return graph.getNodes().stream().filter(node -> graph.getEdges().stream().filter(e -> e.from.equals(node) || e.to.equals(node)).count() % 2 != 0).count() == 2;
+    public void redo() {
+        Action action = history.redo();
+        if (action != null) redo(action);
     }
 
-    private boolean isConnected() {
-        Set<Node> visited = new HashSet<>();
-        dfs(graph.getNodes().getFirst(), visited);
-        return !graph.getNodes().stream().allMatch(node -> graph.getEdges().stream().noneMatch(e -> e.from.equals(node) || e.to.equals(node)) || visited.contains(node));
+    public UndoHistory getHistory() {
+        return history;
     }
 
-    private void dfs(Node node, Set<Node> visited) {
-        visited.add(node);
-        graph.getEdges().stream().filter(e -> e.from.equals(node) || e.to.equals(node)).forEach(e -> {
-            Node next = e.from.equals(node) ? e.to : e.from;
-            if (!visited.contains(next)) dfs(next, visited);
-        });
+    public ActionLog getActionLog() {
+        return actionLog;
     }
 
-    private void markEulerianCircuit() {
-        Graph graphCopy = copyGraph(graph);
-        Stack<Node> stack = new Stack<>();
-        List<Edge> circuit = new ArrayList<>();
-        Node current = graphCopy.getNodes().getFirst();
-        stack.push(current);
-
-        while (!stack.isEmpty()) {
-            Node finalCurrent = current;
-            if (graphCopy.getEdges().stream().anyMatch(e -> e.from.equals(finalCurrent) || e.to.equals(finalCurrent))) {
-                stack.push(current);
-                Node finalCurrent1 = current;
-                Edge edge = graphCopy.getEdges().stream().filter(e -> e.from.equals(finalCurrent1) || e.to.equals(finalCurrent1)).findFirst().get();
-                circuit.add(edge);
-                graphCopy.removeEdge(edge);
-                current = edge.from.equals(current) ? edge.to : edge.from;
-            } else {
-                current = stack.pop();
+    private void undo(Action action) {
+        switch (action.type()) {
+            case ADD_NODE -> graph.removeNode(action.node());
+            case REMOVE_NODE -> {
+                graph.addNode(action.node());
+                ((List<?>) action.oldValue()).forEach(edge -> graph.addEdge((Edge) edge));
+            }
+            case ADD_EDGE -> graph.removeEdge(action.edge());
+            case REMOVE_EDGE -> graph.addEdge(action.edge());
+            case SET_NODE_COLOR -> action.node().setColor((Color) action.oldValue());
+            case SET_EDGE_COLOR -> action.edge().setColor((Color) action.oldValue());
+            case SET_EDGE_WEIGHT -> action.edge().setWeight((int) action.oldValue());
+            case RENAME_NODE -> action.node().setName((String) action.oldValue());
+            case MOVE_NODE -> {
+                Point oldPosition = (Point) action.oldValue();
+                action.node().moveTo(oldPosition.x, oldPosition.y);
+            }
+            case BATCH -> {
+                List<?> actions = (List<?>) action.oldValue();
+                graph.beginBatch();
+                try {
+                    for (int i = actions.size() - 1; i >= 0; i--) undo((Action) actions.get(i));
+                } finally {
+                    graph.endBatch();
+                }
             }
         }
-
-        circuit.forEach(edge -> {
-            Edge originalEdge = findOriginalEdge(edge);
-            if (originalEdge != null) originalEdge.color = Color.RED;
-        });
-        graphPanel.repaint();
     }
 
-    private void markEulerianPath() {
-        SwingWorker<Void, Void> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() {
-                Graph graphCopy = copyGraph(graph);
-                List<Edge> path = new ArrayList<>();
-                Map<Node, List<Edge>> nodeEdgesMap = new HashMap<>();
-
-                graphCopy.getEdges().forEach(edge -> {
-                    nodeEdgesMap.computeIfAbsent(edge.from, k -> new ArrayList<>()).add(edge);
-                    nodeEdgesMap.computeIfAbsent(edge.to, k -> new ArrayList<>()).add(edge);
-                });
-
-                Node current = graphCopy.getNodes().stream().filter(node -> nodeEdgesMap.getOrDefault(node, Collections.emptyList()).size() % 2 != 0).findFirst().orElse(graphCopy.getNodes().getFirst());
-
-                while (!nodeEdgesMap.getOrDefault(current, Collections.emptyList()).isEmpty()) {
-                    List<Edge> edges = nodeEdgesMap.get(current);
-                    Edge edge = edges.getFirst();
-                    Node next = edge.from.equals(current) ? edge.to : edge.from;
-
-                    if (!isBridge(graphCopy, edge)) {
-                        path.add(edge);
-                        edges.remove(edge);
-                        nodeEdgesMap.get(next).remove(edge);
-                        graphCopy.removeEdge(edge);
-                        current = next;
-                    }
+    private void redo(Action action) {
+        switch (action.type()) {
+            case ADD_NODE -> graph.addNode(action.node());
+            case REMOVE_NODE -> graph.removeNode(action.node());
+            case ADD_EDGE -> graph.addEdge(action.edge());
+            case REMOVE_EDGE -> graph.removeEdge(action.edge());
+            case SET_NODE_COLOR -> action.node().setColor((Color) action.newValue());
+            case SET_EDGE_COLOR -> action.edge().setColor((Color) action.newValue());
+            case SET_EDGE_WEIGHT -> action.edge().setWeight((int) action.newValue());
+            case RENAME_NODE -> action.node().setName((String) action.newValue());
+            case MOVE_NODE -> {
+                Point newPosition = (Point) action.newValue();
+                action.node().moveTo(newPosition.x, newPosition.y);
+            }
+            case BATCH -> {
+                graph.beginBatch();
+                try {
+                    for (Object child : (List<?>) action.oldValue()) redo((Action) child);
+                } finally {
+                    graph.endBatch();
                 }
+            }
+        }
+    }
 
-                path.forEach(edge -> {
-                    Edge originalEdge = findOriginalEdge(edge);
-                    if (originalEdge != null) originalEdge.color = Color.BLUE;
+    public void saveGraph(File file) throws IOException {
+        graph.saveToFile(file, GraphFormat.forFile(file));
+    }
+
+    /**
+     * Reads the file into a new graph on a worker, reporting progress like any other task, then swaps it in on the
+     * EDT. {@code onFailed} gets the error if the file could not be read.
+     */
+    public void loadGraph(File file, Consumer<Throwable> onFailed) {
+        // Running tasks work on a snapshot of the graph being replaced
+        algorithmService.cancelAll();
+        algorithmService.submit("Load " + file.getName(), monitor -> {
+            Graph loaded = new Graph();
+            try {
+                loaded.loadFromFile(file, GraphFormat.detect(file), (done, total) -> {
+                    monitor.checkCancelled();
+                    monitor.onProgress(done, total);
                 });
-                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-
-            @Override
-            protected void done() {
-                graphPanel.repaint();
+            return loaded;
+        }, loaded -> {
+            graph.replaceWith(loaded);
+            history.clear();
+        }, onFailed);
+    }
+
+    /**
+     * Converts the file into the format of the target's extension on a worker, reporting progress like any other
+     * task. The current graph is left alone; {@code onFailed} gets the error if either file could not be processed.
+     */
+    public void convertGraph(File source, File target, Consumer<Throwable> onFailed) {
+        algorithmService.submit("Convert " + source.getName(), monitor -> {
+            try {
+                GraphConverter.convert(source, target, GraphFormat.forFile(target), (done, total) -> {
+                    monitor.checkCancelled();
+                    monitor.onProgress(done, total);
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        };
-        worker.execute();
+            return target;
+        }, converted -> {
+        }, onFailed);
     }
 
-    private Graph copyGraph(Graph original) {
-        Graph copy = new Graph();
-        original.getNodes().forEach(node -> copy.addNode(new Node(node.x, node.y, node.name)));
-        original.getEdges().forEach(edge -> {
-            Node from = copy.getNodes().stream().filter(n -> n.name.equals(edge.from.name)).findFirst().get();
-            Node to = copy.getNodes().stream().filter(n -> n.name.equals(edge.to.name)).findFirst().get();
-            copy.addEdge(new Edge(from, to, edge.isDirected, edge.weight));
-        });
-        return copy;
+    public void resetGraph() {
+        algorithmService.cancelAll();
+        graph.clear();
+        history.clear();
     }
 
-    private Edge findOriginalEdge(Edge edge) {
-        return graph.getEdges().stream().filter(e -> e.from.name.equals(edge.from.name) && e.to.name.equals(edge.to.name) && e.isDirected == edge.isDirected && e.weight == edge.weight).findFirst().orElse(null);
+    public void resetColors() {
+        beginBatch();
+        try {
+            for (Node node : graph.getNodes()) {
+                if (!Color.BLACK.equals(node.getColor())) setNodeColor(node, Color.BLACK);
+            }
+            for (Edge edge : graph.getEdges()) {
+                if (!Color.BLACK.equals(edge.getColor())) setEdgeColor(edge, Color.BLACK);
+            }
+        } finally {
+            commitBatch();
+        }
     }
 
-    // Check if removing edge makes graph disconnected
-    private boolean isBridge(Graph graphCopy, Edge edge) {
-        graphCopy.removeEdge(edge);
-        boolean isBridge = isConnected();
-        graphCopy.addEdge(edge.from, edge.to);
-        return isBridge;
+    public List<Node> getNodes() {
+        return graph.getNodes();
     }
 
-    private void logAction(String actionType) {
-        System.out.println("Action created: " + actionType);
-        System.out.println("Stack size: " + actionStack.size());
+    public List<Edge> getEdges() {
+        return graph.getEdges();
     }
 
-    private boolean isHamiltonianCircuit() {
-        List<Node> path = new ArrayList<>();
-        return findHamiltonianCircuit(graph.getNodes().getFirst(), path, new HashSet<>());
+    public List<Edge> getIncidentEdges(Node node) {
+        return graph.getIncidentEdges(node);
     }
 
-    private boolean isHamiltonianPath() {
-        for (Node startNode : graph.getNodes()) {
-            List<Node> path = new ArrayList<>();
-            if (findHamiltonianPath(startNode, path, new HashSet<>())) {
-                return true;
-            }
-        }
-        return false;
+    public AlgorithmService getAlgorithmService() {
+        return algorithmService;
     }
 
-    private boolean findHamiltonianCircuit(Node current, List<Node> path, Set<Node> visited) {
-        path.add(current);
-        visited.add(current);
-
-        if (path.size() == graph.getNodes().size()) {
-            return graph.getEdges().stream()
-                    .anyMatch(e -> e.from.equals(current) && e.to.equals(path.getFirst()));
-        }
+    // Edges of a computed trail or cycle, coloured on the EDT once the computation is done
+    // Results are computed on a snapshot, so elements removed while the task ran are skipped when applying them
+    private record EdgeMarking(CompactGraph compact, int[] edges, Color color) {
+    }
 
-        for (Edge edge : graph.getEdges()) {
-            if (edge.from.equals(current) || edge.to.equals(current)) {
-                Node next = edge.from.equals(current) ? edge.to : edge.from;
-                if (!visited.contains(next)) {
-                    if (findHamiltonianCircuit(next, path, visited)) {
-                        return true;
-                    }
-                }
+    private void applyEdgeMarking(EdgeMarking marking) {
+        if (marking == null) return;
+        beginBatch();
+        try {
+            for (int id : marking.edges()) {
+                Edge edge = marking.compact().edge(id);
+                if (graph.contains(edge)) setEdgeColor(edge, marking.color());
             }
+        } finally {
+            commitBatch();
         }
-
-        path.removeLast();
-        visited.remove(current);
-        return false;
     }
 
+    public void markEulerian() {
+        CompactGraph compact = CompactGraph.of(graph);
+        if (compact.nodeCount() == 0) return;
+        algorithmService.submit("Mark Eulerian", monitor -> findEulerianTrail(compact, monitor), this::applyEdgeMarking);
+    }
 
-    private boolean findHamiltonianPath(Node current, List<Node> path, Set<Node> visited) {
-        path.add(current);
-        visited.add(current);
+    private EdgeMarking findEulerianTrail(CompactGraph compact, TaskMonitor monitor) {
+        EulerianResult trail = EulerianTrail.find(compact, monitor);
+        if (trail == null) return null;
+        return new EdgeMarking(compact, trail.edges(), trail.circuit() ? Color.RED : Color.BLUE);
+    }
 
-        if (path.size() == graph.getNodes().size()) {
-            return true;
-        }
+    /**
+     * What {@link #markHamiltonian(Consumer)} found: a cycle, else a path, else null. Only a cycle of a graph with at
+     * most {@link HeldKarp#MAX_WEIGHTED_NODES} nodes is known to be the lightest; larger graphs get some cycle.
+     */
+    public record HamiltonianFinding(HamiltonianResult result, boolean lightest) {
+    }
 
-        for (Edge edge : graph.getEdges()) {
-            Node next = edge.from.equals(current) ? edge.to : edge.from;
-            if (!visited.contains(next)) {
-                if (findHamiltonianPath(next, path, visited)) {
-                    return true;
-                }
+    /** Marks a Hamiltonian cycle in green, or failing that a Hamiltonian path in yellow; {@code onDone} gets the finding. */
+    public void markHamiltonian(Consumer<HamiltonianFinding> onDone) {
+        CompactGraph compact = CompactGraph.of(graph);
+        if (compact.nodeCount() == 0) return;
+        algorithmService.submit("Mark Hamiltonian", monitor -> findHamiltonian(compact, monitor), finding -> {
+            HamiltonianResult result = finding.result();
+            if (result != null) {
+                applyEdgeMarking(new EdgeMarking(compact, result.edges(), result.cycle() ? Color.GREEN : Color.YELLOW));
             }
-        }
+            onDone.accept(finding);
+        });
+    }
 
-        path.removeLast();
-        visited.remove(current);
-        return false;
+    private HamiltonianFinding findHamiltonian(CompactGraph compact, TaskMonitor monitor) {
+        // Small graphs get the weighted subset DP, which picks the lightest cycle. Its table of a cost per subset and
+        // end node outgrows memory beyond that, so up to MAX_NODES the reachability DP only finds some cycle, and
+        // larger graphs fall back to backtracking
+        int n = compact.nodeCount();
+        boolean lightest = n <= HeldKarp.MAX_WEIGHTED_NODES;
+        HamiltonianResult result;
+        if (lightest) {
+            result = HeldKarp.shortestCycle(compact, monitor);
+        } else if (n <= HeldKarp.MAX_NODES) {
+            result = HeldKarp.findCycle(compact, monitor);
+        } else {
+            return new HamiltonianFinding(HamiltonianSearch.find(compact, monitor), false);
+        }
+        if (result == null) result = HamiltonianSearch.findPath(compact, monitor);
+        return new HamiltonianFinding(result, lightest && result != null && result.cycle());
+    }
+
+    /**
+     * Marks a shortest route from {@code from} to {@code to} in magenta. {@code onDone} gets the route, null if there
+     * is none, or {@link ShortestPathResult#NEGATIVE_CYCLE}.
+     */
+    public void markShortestPath(Node from, Node to, Consumer<ShortestPathResult> onDone) {
+        CompactGraph compact = CompactGraph.of(graph);
+        int source = compact.indexOf(from), target = compact.indexOf(to);
+        if (source < 0 || target < 0) return;
+        algorithmService.submit("Shortest Path", monitor -> ShortestPaths.find(compact, source, target, monitor), path -> {
+            if (path != null && !path.isNegativeCycle()) applyEdgeMarking(new EdgeMarking(compact, path.edges(), Color.MAGENTA));
+            onDone.accept(path);
+        });
     }
 
-    public void markHamiltonian() {
-        if (isHamiltonianCircuit()) {
-            System.out.println("Hamiltonian circuit found");
-            markHamiltonianCircuit();
-        } else if (isHamiltonianPath()) {
-            System.out.println("Hamiltonian path found");
-            markHamiltonianPath();
+    /**
+     * Lays the graph out with {@link ForceLayout} on a worker. Intermediate positions are shown as they come, each as
+     * a graph batch so the panel repaints once per frame, and spaced so showing them keeps the EDT at most half busy.
+     * Only the final positions are recorded, as one undo entry; cancelling puts every node back where it started.
+     */
+    public void autoLayout() {
+        CompactGraph compact = CompactGraph.of(graph);
+        int n = compact.nodeCount();
+        if (n == 0) return;
+        int[] start = new int[2 * n];
+        for (int v = 0; v < n; v++) {
+            start[2 * v] = compact.node(v).getX();
+            start[2 * v + 1] = compact.node(v).getY();
         }
+        // Set by the EDT once a frame is shown; the next one waits at least as long as that frame took to show
+        AtomicLong nextFrameAt = new AtomicLong(System.nanoTime() + LAYOUT_FRAME_NANOS);
+        AtomicBoolean framePending = new AtomicBoolean();
+        algorithmService.submit("Auto Layout", monitor -> {
+            ForceLayout layout = new ForceLayout(compact);
+            try {
+                while (!layout.isFinished()) {
+                    monitor.checkCancelled();
+                    layout.step();
+                    monitor.onProgress(layout.steps(), ForceLayout.MAX_STEPS);
+                    if (System.nanoTime() < nextFrameAt.get() || !framePending.compareAndSet(false, true)) continue;
+                    int[] frame = positions(layout, n);
+                    SwingUtilities.invokeLater(() -> {
+                        long shown = System.nanoTime();
+                        showPositions(compact, frame);
+                        long now = System.nanoTime();
+                        nextFrameAt.set(now + Math.max(LAYOUT_FRAME_NANOS, now - shown));
+                        framePending.set(false);
+                    });
+                }
+            } catch (CancellationException e) {
+                SwingUtilities.invokeLater(() -> showPositions(compact, start));
+                throw e;
+            }
+            return positions(layout, n);
+        }, positions -> {
+            beginBatch();
+            try {
+                for (int v = 0; v < n; v++) {
+                    Node node = compact.node(v);
+                    int x = positions[2 * v], y = positions[2 * v + 1], oldX = start[2 * v], oldY = start[2 * v + 1];
+                    if (graph.contains(node) && (x != oldX || y != oldY)) moveNode(node, x, y, oldX, oldY);
+                }
+            } finally {
+                commitBatch();
+            }
+        });
     }
 
-    private void markHamiltonianCircuit() {
-        List<Node> path = new ArrayList<>();
-        if (findHamiltonianCircuit(graph.getNodes().getFirst(), path, new HashSet<>())) {
-            markPath(path, Color.GREEN);
-            Node first = path.getFirst();
-            Node last = path.getLast();
-            graph.getEdges().stream()
-                    .filter(e -> (e.from.equals(first) && e.to.equals(last)) || (e.from.equals(last) && e.to.equals(first)))
-                    .findFirst().ifPresent(closingEdge -> closingEdge.color = Color.GREEN);
+    private static int[] positions(ForceLayout layout, int n) {
+        int[] positions = new int[2 * n];
+        for (int v = 0; v < n; v++) {
+            positions[2 * v] = layout.x(v);
+            positions[2 * v + 1] = layout.y(v);
         }
-        graphPanel.repaint();
+        return positions;
     }
 
-    private void markHamiltonianPath() {
-        for (Node startNode : graph.getNodes()) {
-            List<Node> path = new ArrayList<>();
-            if (findHamiltonianPath(startNode, path, new HashSet<>())) {
-                markPath(path, Color.YELLOW);
-                break;
+    // Moves nodes without recording anything; nodes deleted in the meantime are left alone
+    private void showPositions(CompactGraph compact, int[] positions) {
+        graph.beginBatch();
+        try {
+            for (int v = 0; v < compact.nodeCount(); v++) {
+                Node node = compact.node(v);
+                if (graph.contains(node)) node.moveTo(positions[2 * v], positions[2 * v + 1]);
             }
+        } finally {
+            graph.endBatch();
         }
     }
 
-    private void markPath(List<Node> path, Color color) {
-        for (int i = 0; i < path.size() - 1; i++) {
-            Node from = path.get(i);
-            Node to = path.get(i + 1);
-            graph.getEdges().stream().filter(e -> (e.from.equals(from) && e.to.equals(to)) || (e.from.equals(to) && e.to.equals(from))).findFirst().ifPresent(edge -> edge.color = color);
-        }
-        graphPanel.repaint();
+    /** Marks a minimum spanning forest in orange; {@code onDone} gets the forest. */
+    public void markMinimumSpanningForest(Consumer<SpanningForestResult> onDone) {
+        CompactGraph compact = CompactGraph.of(graph);
+        algorithmService.submit("Minimum Spanning Tree", monitor -> MinimumSpanningForest.find(compact, monitor), forest -> {
+            applyEdgeMarking(new EdgeMarking(compact, forest.edges(), Color.ORANGE));
+            onDone.accept(forest);
+        });
     }
 
-    public void colorGraph() {
-        Map<Node, Color> nodeColors = new HashMap<>();
-        List<Color> colors = Arrays.asList(Color.RED, Color.BLUE, Color.GREEN, Color.YELLOW, Color.ORANGE, Color.PINK, Color.CYAN);
+    /**
+     * Colours every node by its eccentricity, green for the most central through red for the most peripheral; nodes
+     * that reach no other node turn gray. {@code onDone} gets the matrix, or null if a negative cycle prevented it.
+     */
+    public void colorByEccentricity(Consumer<DistanceMatrix> onDone) {
+        CompactGraph compact = CompactGraph.of(graph);
+        algorithmService.submit("Eccentricity", monitor -> AllPairsShortestPaths.compute(compact, monitor), matrix -> {
+            if (matrix != null) applyEccentricityColors(compact, matrix);
+            onDone.accept(matrix);
+        });
+    }
 
-        for (Node node : graph.getNodes()) {
-            Set<Color> usedColors = new HashSet<>();
-            for (Edge edge : graph.getEdges()) {
-                if (edge.from.equals(node) && nodeColors.containsKey(edge.to)) {
-                    usedColors.add(nodeColors.get(edge.to));
-                } else if (edge.to.equals(node) && nodeColors.containsKey(edge.from)) {
-                    usedColors.add(nodeColors.get(edge.from));
+    private void applyEccentricityColors(CompactGraph compact, DistanceMatrix matrix) {
+        int n = matrix.size();
+        int[] eccentricities = new int[n];
+        int min = Integer.MAX_VALUE, max = 0;
+        for (int v = 0; v < n; v++) {
+            eccentricities[v] = matrix.eccentricity(v);
+            if (eccentricities[v] == 0) continue;
+            min = Math.min(min, eccentricities[v]);
+            max = Math.max(max, eccentricities[v]);
+        }
+        beginBatch();
+        try {
+            for (int v = 0; v < n; v++) {
+                if (!graph.contains(compact.node(v))) continue;
+                if (eccentricities[v] == 0) {
+                    setNodeColor(compact.node(v), Color.GRAY);
+                    continue;
                 }
+                float position = max == min ? 0 : (float) (eccentricities[v] - min) / (max - min);
+                setNodeColor(compact.node(v), Color.getHSBColor((1 - position) / 3, 1, 0.9f));
             }
-            for (Color color : colors) {
-                if (!usedColors.contains(color)) {
-                    nodeColors.put(node, color);
-                    break;
+        } finally {
+            commitBatch();
+        }
+    }
+
+    /**
+     * Computes all distances on a worker and writes them as CSV for a .csv file, otherwise in the binary .gdm layout.
+     * Only the diameter comes back to the EDT: {@code onDone} gets it, or null if a negative cycle prevented the
+     * export, and {@code onFailed} gets the error if writing failed.
+     */
+    public void exportDistances(File file, Consumer<Integer> onDone, Consumer<Throwable> onFailed) {
+        CompactGraph compact = CompactGraph.of(graph);
+        algorithmService.submit("Export Distances", monitor -> {
+            DistanceMatrix matrix = AllPairsShortestPaths.compute(compact, monitor);
+            if (matrix == null) return null;
+            try {
+                if (file.getName().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+                    try (Writer writer = Files.newBufferedWriter(file.toPath())) {
+                        matrix.writeCsv(writer);
+                    }
+                } else {
+                    matrix.writeBinary(file.toPath());
                 }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        }
+            return matrix.diameter();
+        }, onDone, onFailed);
+    }
+
+    public void colorGraph() {
+        colorGraph(result -> {
+        });
+    }
 
-        markColoredNodes(nodeColors);
+    /** Colours the graph properly with as many colours as it needs; {@code onDone} gets the colouring. */
+    public void colorGraph(Consumer<ColoringResult> onDone) {
+        CompactGraph compact = CompactGraph.of(graph);
+        algorithmService.submit("Color Graph", monitor -> GraphColoring.find(compact, monitor), result -> {
+            List<Color> palette = colorPalette(result.colorCount());
+            beginBatch();
+            try {
+                for (int v = 0; v < result.colors().length; v++) {
+                    if (graph.contains(compact.node(v))) setNodeColor(compact.node(v), palette.get(result.colors()[v]));
+                }
+            } finally {
+                commitBatch();
+            }
+            onDone.accept(result);
+        });
     }
 
-    private void markColoredNodes(Map<Node, Color> nodeColors) {
-        for (Map.Entry<Node, Color> entry : nodeColors.entrySet()) {
-            entry.getKey().setColor(entry.getValue());
+    // Hues advance by the golden ratio so any prefix is well spread; every third round of hues is darker
+    static List<Color> colorPalette(int count) {
+        List<Color> palette = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            float hue = (float) ((i * 0.6180339887498949) % 1);
+            float brightness = i % 3 == 2 ? 0.7f : 0.95f;
+            palette.add(Color.getHSBColor(hue, 0.8f, brightness));
         }
-        graphPanel.repaint();
+        return palette;
     }
-}
\ No newline at end of file
+}
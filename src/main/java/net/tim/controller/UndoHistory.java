@@ -0,0 +1,153 @@
+package net.tim.controller;
+
+import java.util.List;
+
+/**
+ * Undo/redo history in a ring buffer. The oldest entries are dropped once either the entry limit or the estimated
+ * memory limit is exceeded, so a long session keeps a bounded amount of history. Consecutive moves of the same node
+ * within one gesture, such as a single drag, are merged into one entry; separate gestures stay separate entries.
+ */
+public final class UndoHistory {
+    public static final int DEFAULT_MAX_ENTRIES = 1000;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    // Rough per-object sizes for the memory estimate: an Action record with its boxed values, a Point, a list slot
+    private static final int ACTION_BYTES = 64;
+    private static final int POINT_BYTES = 24;
+    private static final int EDGE_BYTES = 56;
+    private static final int LIST_BYTES = 24;
+
+    private final Action[] entries;
+    private final long[] entryBytes;
+    private final long maxBytes;
+    private int first;
+    // Entries [0, undoCount) can be undone, [undoCount, count) redone, counted from first
+    private int undoCount;
+    private int count;
+    private long totalBytes;
+    // Open between beginGesture() and endGesture(); moves merge only into the entry the open gesture pushed
+    private boolean gestureOpen;
+    private Action gestureEntry;
+
+    public UndoHistory() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_BYTES);
+    }
+
+    public UndoHistory(int maxEntries, long maxBytes) {
+        if (maxEntries < 1) throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        this.entries = new Action[maxEntries];
+        this.entryBytes = new long[maxEntries];
+        this.maxBytes = maxBytes;
+    }
+
+    /** Records a new action. Anything that could be redone is discarded. */
+    public void push(Action action) {
+        discardRedo();
+        if (undoCount > 0 && mergeMove(action)) return;
+        if (count == entries.length) dropOldest();
+        int slot = slot(count);
+        entries[slot] = action;
+        entryBytes[slot] = estimateBytes(action);
+        totalBytes += entryBytes[slot];
+        count++;
+        undoCount++;
+        gestureEntry = gestureOpen ? action : null;
+        while (totalBytes > maxBytes && count > 1) dropOldest();
+    }
+
+    // A gesture that keeps moving the same node only updates the target of the entry it started
+    private boolean mergeMove(Action action) {
+        int slot = slot(undoCount - 1);
+        Action last = entries[slot];
+        if (last != gestureEntry || action.type() != Action.ActionType.MOVE_NODE
+                || last.type() != Action.ActionType.MOVE_NODE || last.node() != action.node()) {
+            return false;
+        }
+        entries[slot] = new Action(Action.ActionType.MOVE_NODE, last.node(), null, last.oldValue(), action.newValue());
+        gestureEntry = entries[slot];
+        return true;
+    }
+
+    /** Starts a gesture: until {@link #endGesture()}, consecutive moves of one node are undone as one step. */
+    public void beginGesture() {
+        gestureOpen = true;
+        gestureEntry = null;
+    }
+
+    public void endGesture() {
+        gestureOpen = false;
+        gestureEntry = null;
+    }
+
+    /** Takes the most recent action off the undo side, or returns null if there is none. */
+    public Action undo() {
+        if (undoCount == 0) return null;
+        return entries[slot(--undoCount)];
+    }
+
+    /** Takes the most recently undone action back onto the undo side, or returns null if there is none. */
+    public Action redo() {
+        if (undoCount == count) return null;
+        return entries[slot(undoCount++)];
+    }
+
+    public boolean canUndo() {
+        return undoCount > 0;
+    }
+
+    public boolean canRedo() {
+        return undoCount < count;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long estimatedBytes() {
+        return totalBytes;
+    }
+
+    public void clear() {
+        while (count > 0) release(slot(--count));
+        first = 0;
+        undoCount = 0;
+        gestureEntry = null;
+    }
+
+    private void discardRedo() {
+        while (count > undoCount) release(slot(--count));
+    }
+
+    private void dropOldest() {
+        release(first);
+        first = (first + 1) % entries.length;
+        count--;
+        if (undoCount > 0) undoCount--;
+    }
+
+    private void release(int slot) {
+        totalBytes -= entryBytes[slot];
+        entries[slot] = null;
+        entryBytes[slot] = 0;
+    }
+
+    private int slot(int i) {
+        return (first + i) % entries.length;
+    }
+
+    static long estimateBytes(Action action) {
+        return switch (action.type()) {
+            case MOVE_NODE -> ACTION_BYTES + 2 * POINT_BYTES;
+            // The removed node's edges stay reachable through the entry until it is dropped
+            case REMOVE_NODE -> ACTION_BYTES + LIST_BYTES + (long) ((List<?>) action.oldValue()).size() * EDGE_BYTES;
+            case REMOVE_EDGE -> ACTION_BYTES + EDGE_BYTES;
+            case BATCH -> {
+                List<?> actions = (List<?>) action.oldValue();
+                long bytes = ACTION_BYTES + LIST_BYTES + 8L * actions.size();
+                for (Object child : actions) bytes += estimateBytes((Action) child);
+                yield bytes;
+            }
+            default -> ACTION_BYTES;
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package net.tim.model;
+
+import java.awt.Color;
+
+// Hands out one shared Color instance per RGB value so loaders don't allocate a Color per entity
+final class ColorPool {
+    private int[] keys = new int[64];
+    private Color[] colors = new Color[64];
+    private int size;
+
+    Color get(int rgb) {
+        int mask = keys.length - 1;
+        int slot = mix(rgb) & mask;
+        while (colors[slot] != null) {
+            if (keys[slot] == rgb) return colors[slot];
+            slot = (slot + 1) & mask;
+        }
+        Color color = new Color(rgb);
+        keys[slot] = rgb;
+        colors[slot] = color;
+        if (++size * 2 > keys.length) grow();
+        return color;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Color[] oldColors = colors;
+        keys = new int[oldKeys.length * 2];
+        colors = new Color[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldColors[i] == null) continue;
+            int slot = mix(oldKeys[i]) & mask;
+            while (colors[slot] != null) slot = (slot + 1) & mask;
+            keys[slot] = oldKeys[i];
+            colors[slot] = oldColors[i];
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,184 @@
+package net.tim.model;
+
+import java.util.List;
+
+/**
+ * Immutable compressed-sparse-row snapshot of a {@link Graph}.
+ * Nodes and edges are addressed by dense int ids (their position in the graph's lists at snapshot time).
+ * Every edge contributes one arc at each endpoint; arcs that run against a directed edge are flagged as reverse,
+ * so algorithms can choose between the directed and the undirected view without a second structure.
+ * <p>
+ * Per-edge data is not stored twice: an edge is found through its forward arc, whose target and weight are the
+ * edge's, and its source is the node that owns that arc. That costs a binary search over the offsets, so
+ * {@link #edgeSource(int)} is O(log V); traversals should walk arcs instead.
+ */
+public final class CompactGraph {
+    private final Node[] nodes;
+    private final Edge[] edges;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final int[] arcEdges;
+    private final long[] reverseArcs;
+    // Arc of each edge at its source
+    private final int[] forwardArcs;
+    private final long[] directedEdges;
+    private final boolean hasDirectedEdges;
+
+    private CompactGraph(Node[] nodes, Edge[] edges, int[] offsets, int[] targets, int[] weights, int[] arcEdges,
+                         long[] reverseArcs, int[] forwardArcs, long[] directedEdges, boolean hasDirectedEdges) {
+        this.nodes = nodes;
+        this.edges = edges;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.arcEdges = arcEdges;
+        this.reverseArcs = reverseArcs;
+        this.forwardArcs = forwardArcs;
+        this.directedEdges = directedEdges;
+        this.hasDirectedEdges = hasDirectedEdges;
+    }
+
+    public static CompactGraph of(Graph graph) {
+        List<Node> nodeList = graph.getNodes();
+        List<Edge> edgeList = graph.getEdges();
+        int n = nodeList.size(), m = edgeList.size();
+        Node[] nodes = nodeList.toArray(new Node[0]);
+        Edge[] edges = edgeList.toArray(new Edge[0]);
+
+        // Endpoints are kept only until the arcs are filled in
+        int[] edgeSources = new int[m];
+        int[] edgeTargets = new int[m];
+        long[] directedEdges = new long[(m + 63) >>> 6];
+        boolean hasDirected = false;
+        int[] offsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            int from = graph.indexOf(edges[e].getFrom()), to = graph.indexOf(edges[e].getTo());
+            if (from < 0 || to < 0) throw new IllegalArgumentException("Edge endpoint is not part of the graph");
+            edgeSources[e] = from;
+            edgeTargets[e] = to;
+            offsets[from + 1]++;
+            offsets[to + 1]++;
+            if (edges[e].isDirected()) {
+                directedEdges[e >>> 6] |= 1L << e;
+                hasDirected = true;
+            }
+        }
+        for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+
+        int arcCount = offsets[n];
+        int[] targets = new int[arcCount];
+        int[] weights = new int[arcCount];
+        int[] arcEdges = new int[arcCount];
+        long[] reverseArcs = new long[(arcCount + 63) >>> 6];
+        int[] cursor = new int[n];
+        System.arraycopy(offsets, 0, cursor, 0, n);
+        int[] forwardArcs = edgeSources;
+        for (int e = 0; e < m; e++) {
+            int from = edgeSources[e], to = edgeTargets[e], weight = edges[e].getWeight();
+            int arc = cursor[from]++;
+            forwardArcs[e] = arc;
+            targets[arc] = to;
+            weights[arc] = weight;
+            arcEdges[arc] = e;
+            arc = cursor[to]++;
+            targets[arc] = from;
+            weights[arc] = weight;
+            arcEdges[arc] = e;
+            if (edges[e].isDirected()) reverseArcs[arc >>> 6] |= 1L << arc;
+        }
+        return new CompactGraph(nodes, edges, offsets, targets, weights, arcEdges, reverseArcs, forwardArcs,
+                directedEdges, hasDirected);
+    }
+
+    public int nodeCount() {
+        return nodes.length;
+    }
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    public Node node(int id) {
+        return nodes[id];
+    }
+
+    public Edge edge(int id) {
+        return edges[id];
+    }
+
+    // Id of the node in this snapshot, or -1 if it was not part of the graph when the snapshot was taken
+    public int indexOf(Node node) {
+        int index = node.index;
+        return index >= 0 && index < nodes.length && nodes[index] == node ? index : -1;
+    }
+
+    public int firstArc(int node) {
+        return offsets[node];
+    }
+
+    public int endArc(int node) {
+        return offsets[node + 1];
+    }
+
+    // Number of incident edges ignoring direction; self-loops count twice
+    public int degree(int node) {
+        return offsets[node + 1] - offsets[node];
+    }
+
+    public int target(int arc) {
+        return targets[arc];
+    }
+
+    public int weight(int arc) {
+        return weights[arc];
+    }
+
+    public int arcEdge(int arc) {
+        return arcEdges[arc];
+    }
+
+    // True if the arc walks a directed edge backwards, i.e. it only exists in the undirected view
+    public boolean isReverse(int arc) {
+        return (reverseArcs[arc >>> 6] & (1L << arc)) != 0;
+    }
+
+    public int edgeSource(int edge) {
+        return arcSource(forwardArcs[edge]);
+    }
+
+    public int edgeTarget(int edge) {
+        return targets[forwardArcs[edge]];
+    }
+
+    public int edgeWeight(int edge) {
+        return weights[forwardArcs[edge]];
+    }
+
+    // The node whose arc range holds the arc; nodes without arcs share their offset with the next node
+    private int arcSource(int arc) {
+        int low = 0, high = nodes.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= arc) low = middle;
+            else high = middle - 1;
+        }
+        return low;
+    }
+
+    public boolean isDirected(int edge) {
+        return (directedEdges[edge >>> 6] & (1L << edge)) != 0;
+    }
+
+    public boolean hasDirectedEdges() {
+        return hasDirectedEdges;
+    }
+
+    // Finds an arc from one node to another in the undirected view, or -1
+    public int findArc(int from, int to) {
+        for (int arc = offsets[from], end = offsets[from + 1]; arc < end; arc++) {
+            if (targets[arc] == to) return arc;
+        }
+        return -1;
+    }
+}
@@ -3,10 +3,14 @@ package net.tim.model;
 import java.awt.Color;
 
 public class Edge {
-    public Node from, to;
-    public boolean isDirected;
-    public int weight;
-    public Color color;
+    private final Node from, to;
+    private final boolean isDirected;
+    // Changed only through setWeight() and setColor(), so the owning graph hears about every change
+    private int weight;
+    private Color color;
+    int id = -1;
+    int index = -1;
+    Graph owner;
 
     public Edge(Node from, Node to) {
         this(from, to, false, 1);
@@ -24,7 +28,39 @@ public class Edge {
         this.color = Color.BLACK;
     }
 
+    public Node getFrom() {
+        return from;
+    }
+
+    public Node getTo() {
+        return to;
+    }
+
+    public boolean isDirected() {
+        return isDirected;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
+    // Stable id assigned by the first graph the edge is added to; -1 while unassigned
+    public int getId() {
+        return id;
+    }
+
     public void setColor(Color color) {
         this.color = color;
+        if (owner != null) owner.fireEdgeChanged(this);
+    }
+
+    public void setWeight(int weight) {
+        int oldWeight = this.weight;
+        this.weight = weight;
+        if (owner != null) owner.fireEdgeWeightChanged(this, oldWeight);
     }
 }
\ No newline at end of file
@@ -1,112 +1,409 @@
 package net.tim.model;
 
-import java.awt.*;
 import java.io.*;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 public class Graph {
-    private final List<Node> nodes;
-    private final List<Edge> edges;
+    private final ArrayList<Node> nodes;
+    private final ArrayList<Edge> edges;
+    private final List<Node> nodeView;
+    private final List<Edge> edgeView;
+    private int nextNodeId;
+    private int nextEdgeId;
+    // Copied on change so firing an event never allocates
+    private GraphListener[] listeners = new GraphListener[0];
+    // Set while a file is loaded; the load is reported as a single reset
+    private boolean loading;
 
     public Graph() {
         nodes = new ArrayList<>();
         edges = new ArrayList<>();
+        nodeView = Collections.unmodifiableList(nodes);
+        edgeView = Collections.unmodifiableList(edges);
+    }
+
+    public void addListener(GraphListener listener) {
+        listeners = Arrays.copyOf(listeners, listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+    }
+
+    public void removeListener(GraphListener listener) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                GraphListener[] remaining = new GraphListener[listeners.length - 1];
+                System.arraycopy(listeners, 0, remaining, 0, i);
+                System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+                listeners = remaining;
+                return;
+            }
+        }
+    }
+
+    private boolean silent() {
+        return loading || listeners.length == 0;
+    }
+
+    /** Announces a run of related changes; listeners may hold back expensive updates until {@link #endBatch()}. */
+    public void beginBatch() {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.batchStarted();
+    }
+
+    public void endBatch() {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.batchFinished();
+    }
+
+    void fireNodeMoved(Node node, int oldX, int oldY) {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.nodeMoved(node, oldX, oldY);
+    }
+
+    void fireNodeRenamed(Node node, String oldName) {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.nodeRenamed(node, oldName);
+    }
+
+    void fireNodeChanged(Node node) {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.nodeChanged(node);
+    }
+
+    void fireEdgeWeightChanged(Edge edge, int oldWeight) {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.edgeWeightChanged(edge, oldWeight);
+    }
+
+    void fireEdgeChanged(Edge edge) {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.edgeChanged(edge);
+    }
+
+    private void fireReset() {
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.graphReset();
     }
 
     public void addNode(int x, int y, String name) {
-        nodes.add(new Node(x, y, name));
+        addNode(new Node(x, y, name));
     }
 
     public void addNode(Node node) {
+        if (contains(node)) return;
+        if (node.id < 0) node.id = nextNodeId++;
+        node.index = nodes.size();
+        node.owner = this;
         nodes.add(node);
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.nodeAdded(node);
+    }
+
+    public boolean contains(Node node) {
+        return node.index >= 0 && node.index < nodes.size() && nodes.get(node.index) == node;
+    }
+
+    public boolean contains(Edge edge) {
+        return edge.index >= 0 && edge.index < edges.size() && edges.get(edge.index) == edge;
+    }
+
+    // Position of the node in getNodes(), or -1 if it is not part of this graph
+    public int indexOf(Node node) {
+        return contains(node) ? node.index : -1;
     }
 
     public void addEdge(Node from, Node to) {
-        edges.add(new Edge(from, to));
+        addEdge(new Edge(from, to));
     }
 
     public void addEdge(Node from, Node to, boolean isDirected, int weight) {
-        Edge edge = new Edge(from, to, isDirected, weight);
-        edges.add(edge);
+        addEdge(new Edge(from, to, isDirected, weight));
     }
 
     public void addWeightedEdge(Node from, Node to, int weight) {
-        edges.add(new Edge(from, to, false, weight));
+        addEdge(new Edge(from, to, false, weight));
     }
 
     public void addWeightedDirectedEdge(Node from, Node to, int weight) {
-        edges.add(new Edge(from, to, true, weight));
+        addEdge(new Edge(from, to, true, weight));
     }
 
-    public void removeNode(Node node) {
-        removeNode(node.x, node.y, node.name);
+    public void addEdge(Edge edge) {
+        if (contains(edge)) return;
+        if (edge.id < 0) edge.id = nextEdgeId++;
+        edge.index = edges.size();
+        edge.owner = this;
+        edges.add(edge);
+        link(edge);
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.edgeAdded(edge);
+    }
+
+    // Removes the node and its incident edges; returns the removed edges so they can be restored
+    public List<Edge> removeNode(Node node) {
+        if (!contains(node)) return List.of();
+        List<Edge> removed = new ArrayList<>(degree(node));
+        if (node.outEdges != null) removed.addAll(node.outEdges);
+        if (node.inEdges != null) {
+            // A self-loop is in both lists, but is removed and reported once
+            for (Edge edge : node.inEdges) {
+                if (edge.getFrom() != node) removed.add(edge);
+            }
+        }
+        for (Edge edge : removed) detachEdge(edge);
+        detachNode(node);
+        if (!silent()) {
+            for (GraphListener listener : listeners) listener.nodeRemoved(node, removed);
+        }
+        return removed;
     }
 
     public void removeNode(int x, int y, String name) {
-        nodes.removeIf(node -> node.x == x && node.y == y && node.name.equals(name));
-        edges.removeIf(edge -> edge.from.x == x && edge.from.y == y && edge.from.name.equals(name) ||
-                edge.to.x == x && edge.to.y == y && edge.to.name.equals(name));
+        List<Node> matches = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.getX() == x && node.getY() == y && name.equals(node.getName())) matches.add(node);
+        }
+        matches.forEach(this::removeNode);
     }
 
     public void removeEdge(Edge edge) {
-        edges.remove(edge);
+        if (contains(edge)) detachEdge(edge);
+    }
+
+    // Constant-time removal: the last element takes over the freed slot
+    private void detachNode(Node node) {
+        Node last = nodes.removeLast();
+        if (last != node) {
+            nodes.set(node.index, last);
+            last.index = node.index;
+        }
+        node.index = -1;
+        node.owner = null;
     }
 
+    private void detachEdge(Edge edge) {
+        Edge last = edges.removeLast();
+        if (last != edge) {
+            edges.set(edge.index, last);
+            last.index = edge.index;
+        }
+        edge.index = -1;
+        edge.owner = null;
+        unlink(edge);
+        if (silent()) return;
+        for (GraphListener listener : listeners) listener.edgeRemoved(edge);
+    }
+
+    // Read-only views; changes go through the graph and the setters of Node and Edge so listeners hear about them
     public List<Node> getNodes() {
-        return nodes;
+        return nodeView;
     }
 
     public List<Edge> getEdges() {
-        return edges;
+        return edgeView;
+    }
+
+    public List<Edge> getOutgoingEdges(Node node) {
+        return node.outEdges == null ? List.of() : Collections.unmodifiableList(node.outEdges);
+    }
+
+    public List<Edge> getIncomingEdges(Node node) {
+        return node.inEdges == null ? List.of() : Collections.unmodifiableList(node.inEdges);
+    }
+
+    // Every edge touching the node regardless of direction; self-loops appear twice
+    public List<Edge> getIncidentEdges(Node node) {
+        List<Edge> incident = new ArrayList<>(degree(node));
+        if (node.outEdges != null) incident.addAll(node.outEdges);
+        if (node.inEdges != null) incident.addAll(node.inEdges);
+        return incident;
+    }
+
+    public List<Node> getNeighbors(Node node) {
+        List<Node> neighbors = new ArrayList<>(degree(node));
+        if (node.outEdges != null) node.outEdges.forEach(edge -> neighbors.add(edge.getTo()));
+        if (node.inEdges != null) node.inEdges.forEach(edge -> neighbors.add(edge.getFrom()));
+        return neighbors;
+    }
+
+    public int degree(Node node) {
+        return (node.outEdges == null ? 0 : node.outEdges.size()) + (node.inEdges == null ? 0 : node.inEdges.size());
     }
 
     public void clear() {
+        for (Edge edge : edges) {
+            edge.index = -1;
+            edge.owner = null;
+            edge.getFrom().outEdges = edge.getFrom().inEdges = null;
+            edge.getTo().outEdges = edge.getTo().inEdges = null;
+        }
+        for (Node node : nodes) {
+            node.index = -1;
+            node.owner = null;
+        }
         nodes.clear();
         edges.clear();
+        fireReset();
+    }
+
+    /**
+     * Replaces the contents of this graph with every node and edge of {@code source}, which is left empty; reported
+     * as a single reset. Lets a file be read into a private graph off the EDT and swapped in once it is complete.
+     */
+    public void replaceWith(Graph source) {
+        List<Node> movedNodes = new ArrayList<>(source.nodes);
+        List<Edge> movedEdges = new ArrayList<>(source.edges);
+        source.clear();
+        loading = true;
+        try {
+            clear();
+            // Moved elements keep their ids, so new ones are numbered past both graphs' ids
+            nextNodeId = Math.max(nextNodeId, source.nextNodeId);
+            nextEdgeId = Math.max(nextEdgeId, source.nextEdgeId);
+            nodes.ensureCapacity(movedNodes.size());
+            movedNodes.forEach(this::addNode);
+            addEdges(movedEdges);
+        } finally {
+            loading = false;
+            fireReset();
+        }
+    }
+
+    // Bulk insertion for loaders
+    void addNodes(List<Node> batch) {
+        nodes.ensureCapacity(nodes.size() + batch.size());
+        batch.forEach(this::addNode);
+    }
+
+    /*
+     * Bulk insertion for loaders. The batch is sorted by endpoint with a counting sort, and then every incidence list
+     * is sized once and filled node by node. Linking edge by edge would chase edge -> node -> list -> array for each
+     * endpoint in random order; here the only random reads are independent ones. Lists keep the batch order.
+     */
+    void addEdges(List<Edge> batch) {
+        int n = nodes.size(), m = batch.size();
+        int[] fromRows = new int[m], toRows = new int[m];
+        int[] outStart = new int[n + 1], inStart = new int[n + 1];
+        for (int i = 0; i < m; i++) {
+            Edge edge = batch.get(i);
+            if (contains(edge) || !contains(edge.getFrom()) || !contains(edge.getTo())) {
+                // Not a fresh batch between nodes of this graph; the one-by-one path handles every case
+                edges.ensureCapacity(edges.size() + m);
+                batch.forEach(this::addEdge);
+                return;
+            }
+            fromRows[i] = edge.getFrom().index;
+            toRows[i] = edge.getTo().index;
+            outStart[fromRows[i] + 1]++;
+            inStart[toRows[i] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            outStart[v + 1] += outStart[v];
+            inStart[v + 1] += inStart[v];
+        }
+        Edge[] byFrom = new Edge[m], byTo = new Edge[m];
+        int[] outNext = Arrays.copyOf(outStart, n), inNext = Arrays.copyOf(inStart, n);
+        for (int i = 0; i < m; i++) {
+            Edge edge = batch.get(i);
+            byFrom[outNext[fromRows[i]]++] = edge;
+            byTo[inNext[toRows[i]]++] = edge;
+        }
+
+        edges.ensureCapacity(edges.size() + m);
+        for (Edge edge : batch) {
+            if (edge.id < 0) edge.id = nextEdgeId++;
+            edge.index = edges.size();
+            edge.owner = this;
+            edges.add(edge);
+        }
+        for (int v = 0; v < n; v++) {
+            Node node = nodes.get(v);
+            if (outStart[v + 1] > outStart[v]) node.outEdges = fill(node.outEdges, byFrom, outStart[v], outStart[v + 1]);
+            if (inStart[v + 1] > inStart[v]) node.inEdges = fill(node.inEdges, byTo, inStart[v], inStart[v + 1]);
+        }
+        if (silent()) return;
+        for (Edge edge : batch) {
+            for (GraphListener listener : listeners) listener.edgeAdded(edge);
+        }
+    }
+
+    private static ArrayList<Edge> fill(ArrayList<Edge> list, Edge[] sorted, int from, int to) {
+        list = ensureCapacity(list, to - from);
+        for (int i = from; i < to; i++) list.add(sorted[i]);
+        return list;
+    }
+
+    private static ArrayList<Edge> ensureCapacity(ArrayList<Edge> list, int extra) {
+        if (list == null) return new ArrayList<>(extra);
+        list.ensureCapacity(list.size() + extra);
+        return list;
+    }
+
+    private void link(Edge edge) {
+        if (edge.getFrom().outEdges == null) edge.getFrom().outEdges = new ArrayList<>(4);
+        edge.getFrom().outEdges.add(edge);
+        if (edge.getTo().inEdges == null) edge.getTo().inEdges = new ArrayList<>(4);
+        edge.getTo().inEdges.add(edge);
+    }
+
+    private void unlink(Edge edge) {
+        unlink(edge.getFrom().outEdges, edge);
+        unlink(edge.getTo().inEdges, edge);
+    }
+
+    private static void unlink(List<Edge> list, Edge edge) {
+        if (list == null) return;
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == edge) {
+                list.remove(i);
+                return;
+            }
+        }
     }
 
     public void saveToFile(File file) throws IOException {
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
             for (Node node : nodes) {
-                writer.write("NODE " + node.x + " " + node.y + " " + node.name + " " + node.color.getRGB());
+                writer.write("NODE " + node.getX() + " " + node.getY() + " " + node.getName() + " " + node.getColor().getRGB());
                 writer.newLine();
             }
             for (Edge edge : edges) {
-                writer.write("EDGE " + edge.from.name + " " + edge.to.name + " " + edge.weight + " " + edge.isDirected + " " + edge.color.getRGB());
+                writer.write("EDGE " + edge.getFrom().getName() + " " + edge.getTo().getName() + " " + edge.getWeight() + " " + edge.isDirected() + " " + edge.getColor().getRGB());
                 writer.newLine();
             }
         }
     }
 
     public void loadFromFile(File file) throws IOException {
-        clear();
-        Map<String, Node> nodeMap = new HashMap<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(" ");
-                if (parts[0].equals("NODE")) {
-                    Node node = new Node(Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), parts[3]);
-                    node.setColor(new Color(Integer.parseInt(parts[4])));
-                    nodes.add(node);
-                    nodeMap.put(node.name, node);
-                } else if (parts[0].equals("EDGE")) {
-                    Node from = nodeMap.get(parts[1]);
-                    Node to = nodeMap.get(parts[2]);
-                    int weight = Integer.parseInt(parts[3]);
-                    boolean isDirected = Boolean.parseBoolean(parts[4]);
-                    Edge edge = new Edge(from, to, isDirected, weight);
-                    edge.setColor(new Color(Integer.parseInt(parts[5])));
-                    edges.add(edge);
-                }
-            }
+        loadFromFile(file, ProgressListener.NONE);
+    }
+
+    public void loadFromFile(File file, ProgressListener listener) throws IOException {
+        loadFromFile(file, GraphFormat.TEXT, listener);
+    }
+
+    public void saveToFile(File file, GraphFormat format) throws IOException {
+        if (format == GraphFormat.BINARY) {
+            GraphBinaryFormat.write(this, file.toPath());
+        } else {
+            saveToFile(file);
         }
     }
 
-    public void addEdge(Edge edge) {
-        edges.add(edge);
+    public void loadFromFile(File file, GraphFormat format, ProgressListener listener) throws IOException {
+        loading = true;
+        try {
+            clear();
+            if (format == GraphFormat.BINARY) {
+                GraphBinaryFormat.read(this, file.toPath(), listener);
+            } else {
+                GraphFileReader.read(this, file.toPath(), listener);
+            }
+        } finally {
+            loading = false;
+            fireReset();
+        }
     }
-}
\ No newline at end of file
+}
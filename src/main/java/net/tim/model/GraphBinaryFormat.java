@@ -0,0 +1,160 @@
+package net.tim.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Binary .gbin layout, little-endian:
+ *   header      magic "GVBG", int version, int nodeCount, int edgeCount,
+ *               long nodeTableOffset, long edgeTableOffset, long stringPoolOffset, long stringPoolSize
+ *   node table  nodeCount x (int x, int y, int rgb, int nameOffset, int nameLength)
+ *   edge table  edgeCount x (int fromRow, int toRow, int weight, int rgb, int flags)
+ *   string pool UTF-8 node names, addressed by offset/length from the node table
+ * Edges reference nodes by row, so duplicate names survive a round trip.
+ */
+final class GraphBinaryFormat {
+    static final byte[] MAGIC = {'G', 'V', 'B', 'G'};
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 48;
+    static final int NODE_RECORD_SIZE = 20;
+    static final int EDGE_RECORD_SIZE = 20;
+    private static final int FLAG_DIRECTED = 1;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private GraphBinaryFormat() {
+    }
+
+    static void write(Graph graph, Path path) throws IOException {
+        List<Node> nodes = graph.getNodes();
+        List<Edge> edges = graph.getEdges();
+        byte[][] names = new byte[nodes.size()][];
+        long poolSize = 0;
+        for (int i = 0; i < names.length; i++) {
+            String name = nodes.get(i).getName();
+            names[i] = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+            poolSize += names[i].length;
+        }
+        if (poolSize > Integer.MAX_VALUE) throw new IOException("Node names exceed the 2 GB string pool limit");
+
+        long nodeTableOffset = HEADER_SIZE;
+        long edgeTableOffset = nodeTableOffset + (long) nodes.size() * NODE_RECORD_SIZE;
+        long stringPoolOffset = edgeTableOffset + (long) edges.size() * EDGE_RECORD_SIZE;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put(MAGIC).putInt(VERSION).putInt(nodes.size()).putInt(edges.size())
+                    .putLong(nodeTableOffset).putLong(edgeTableOffset).putLong(stringPoolOffset).putLong(poolSize);
+
+            int nameOffset = 0;
+            for (int i = 0; i < names.length; i++) {
+                Node node = nodes.get(i);
+                ensureRemaining(channel, buffer, NODE_RECORD_SIZE);
+                buffer.putInt(node.getX()).putInt(node.getY()).putInt(node.getColor().getRGB())
+                        .putInt(nameOffset).putInt(names[i].length);
+                nameOffset += names[i].length;
+            }
+            for (Edge edge : edges) {
+                int from = graph.indexOf(edge.getFrom()), to = graph.indexOf(edge.getTo());
+                if (from < 0 || to < 0) throw new IOException("Edge endpoint is not part of the graph");
+                ensureRemaining(channel, buffer, EDGE_RECORD_SIZE);
+                buffer.putInt(from).putInt(to).putInt(edge.getWeight()).putInt(edge.getColor().getRGB())
+                        .putInt(edge.isDirected() ? FLAG_DIRECTED : 0);
+            }
+            for (byte[] name : names) {
+                if (name.length > buffer.remaining()) {
+                    flush(channel, buffer);
+                    if (name.length > buffer.capacity()) {
+                        channel.write(ByteBuffer.wrap(name));
+                        continue;
+                    }
+                }
+                buffer.put(name);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush(channel, buffer);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    // Maps the file and builds the graph from the tables; node names are copied out undecoded and decoded on request
+    static void read(Graph graph, Path path, ProgressListener listener) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) throw new IOException("Not a binary graph file: " + path);
+            ByteBuffer header = map(channel, 0, HEADER_SIZE);
+            for (byte b : MAGIC) {
+                if (header.get() != b) throw new IOException("Not a binary graph file: " + path);
+            }
+            int version = header.getInt();
+            if (version != VERSION) throw new IOException("Unsupported binary graph version " + version);
+            int nodeCount = header.getInt(), edgeCount = header.getInt();
+            long nodeTableOffset = header.getLong(), edgeTableOffset = header.getLong();
+            long stringPoolOffset = header.getLong(), stringPoolSize = header.getLong();
+            if (nodeCount < 0 || edgeCount < 0 || stringPoolSize < 0 || stringPoolSize > Integer.MAX_VALUE
+                    || nodeTableOffset < HEADER_SIZE || edgeTableOffset < HEADER_SIZE || stringPoolOffset < HEADER_SIZE
+                    || nodeTableOffset + (long) nodeCount * NODE_RECORD_SIZE > fileSize
+                    || edgeTableOffset + (long) edgeCount * EDGE_RECORD_SIZE > fileSize
+                    || stringPoolOffset + stringPoolSize > fileSize) {
+                throw new IOException("Corrupt binary graph header: " + path);
+            }
+
+            ByteBuffer nodeTable = map(channel, nodeTableOffset, (long) nodeCount * NODE_RECORD_SIZE);
+            ByteBuffer edgeTable = map(channel, edgeTableOffset, (long) edgeCount * EDGE_RECORD_SIZE);
+            StringPool pool = StringPool.copyOf(nodeTable, nodeCount, map(channel, stringPoolOffset, stringPoolSize));
+            ColorPool colors = new ColorPool();
+            long total = (long) nodeCount + edgeCount;
+
+            Node[] rows = new Node[nodeCount];
+            for (int row = 0; row < nodeCount; row++) {
+                int record = row * NODE_RECORD_SIZE;
+                Node node = new Node(nodeTable.getInt(record), nodeTable.getInt(record + 4), pool, row);
+                node.setColor(colors.get(nodeTable.getInt(record + 8)));
+                graph.addNode(node);
+                rows[row] = node;
+                if ((row & 0xFFFF) == 0) listener.onProgress(row, total);
+            }
+
+            List<Edge> edges = new ArrayList<>(edgeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                int record = i * EDGE_RECORD_SIZE;
+                int from = edgeTable.getInt(record), to = edgeTable.getInt(record + 4);
+                if (from < 0 || from >= nodeCount || to < 0 || to >= nodeCount) {
+                    throw new IOException("Corrupt edge record " + i + " in " + path);
+                }
+                Edge edge = new Edge(rows[from], rows[to], (edgeTable.getInt(record + 16) & FLAG_DIRECTED) != 0,
+                        edgeTable.getInt(record + 8));
+                edge.setColor(colors.get(edgeTable.getInt(record + 12)));
+                edges.add(edge);
+                if ((i & 0xFFFF) == 0) listener.onProgress(nodeCount + (long) i, total);
+            }
+            graph.addEdges(edges);
+            listener.onProgress(total, total);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long offset, long size) throws IOException {
+        if (size > Integer.MAX_VALUE) throw new IOException("Binary graph section exceeds 2 GB");
+        if (offset < 0 || size < 0 || offset + size > channel.size()) {
+            throw new IOException("Binary graph section out of range: " + offset + " + " + size);
+        }
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,28 @@
+package net.tim.model;
+
+import java.io.File;
+import java.io.IOException;
+
+// Converts between the text and binary graph formats; the source format is detected, the target follows the extension
+public final class GraphConverter {
+    private GraphConverter() {
+    }
+
+    public static void convert(File source, File target) throws IOException {
+        convert(source, target, GraphFormat.forFile(target), ProgressListener.NONE);
+    }
+
+    public static void convert(File source, File target, GraphFormat targetFormat, ProgressListener listener) throws IOException {
+        Graph graph = new Graph();
+        graph.loadFromFile(source, GraphFormat.detect(source), listener);
+        graph.saveToFile(target, targetFormat);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GraphConverter <source.graph|source.gbin> <target.graph|target.gbin>");
+            System.exit(1);
+        }
+        convert(new File(args[0]), new File(args[1]));
+    }
+}
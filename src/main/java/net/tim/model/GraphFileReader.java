@@ -0,0 +1,281 @@
+package net.tim.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Streaming parser for the text .graph format. Lines are tokenized in place on the read buffer into primitive
+// columns; nodes and edges are only created once the whole file is read, and the graph is built from them in bulk.
+// Names stay undecoded in a pool until first requested, as for binary files, and edge endpoints are resolved by
+// hashing the raw name bytes.
+final class GraphFileReader {
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final Graph graph;
+    private final ProgressListener listener;
+    private final ColorPool colors = new ColorPool();
+    private final NameTable names = new NameTable();
+    private byte[] buffer = new byte[CHUNK_SIZE];
+    private long lineNumber;
+
+    // Node columns; names are slices of the name table's arena
+    private int nodeCount;
+    private int[] nodeX = new int[1024], nodeY = new int[1024], nodeRgb = new int[1024];
+    private int[] nameOffsets = new int[1024], nameLengths = new int[1024];
+
+    // Edge columns; endpoints are node rows
+    private int edgeCount;
+    private int[] edgeFrom, edgeTo, edgeWeight, edgeRgb;
+    private boolean[] edgeDirected;
+
+    private GraphFileReader(Graph graph, ProgressListener listener) {
+        this.graph = graph;
+        this.listener = listener;
+    }
+
+    static void read(Graph graph, Path path, ProgressListener listener) throws IOException {
+        new GraphFileReader(graph, listener).read(path);
+    }
+
+    private void read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long total = channel.size(), consumed = 0;
+            // Sized for typical EDGE lines of 40 bytes or more; a file of shorter lines regrows the columns a few times,
+            // which costs less than holding columns far larger than needed while the edges are created
+            allocateEdges((int) Math.min(Math.max(total / 40, 16), 1 << 24));
+            int length = 0;
+            while (true) {
+                if (length == buffer.length) {
+                    byte[] larger = new byte[buffer.length * 2];
+                    System.arraycopy(buffer, 0, larger, 0, length);
+                    buffer = larger;
+                }
+                int read = channel.read(ByteBuffer.wrap(buffer, length, buffer.length - length));
+                if (read < 0) break;
+                length += read;
+
+                int lineStart = 0;
+                for (int i = lineStart; i < length; i++) {
+                    if (buffer[i] == '\n') {
+                        parseLine(lineStart, i);
+                        lineStart = i + 1;
+                    }
+                }
+                consumed += lineStart;
+                length -= lineStart;
+                System.arraycopy(buffer, lineStart, buffer, 0, length);
+                listener.onProgress(consumed, total);
+            }
+            if (length > 0) parseLine(0, length);
+            build();
+            listener.onProgress(total, total);
+        }
+    }
+
+    private void parseLine(int start, int end) throws IOException {
+        lineNumber++;
+        if (end > start && buffer[end - 1] == '\r') end--;
+        if (startsWith(start, end, "NODE ")) {
+            int pos = start + 5;
+            int x = parseInt(pos, end);
+            pos = nextToken(pos, end);
+            int y = parseInt(pos, end);
+            int nameStart = nextToken(pos, end), nameEnd = tokenEnd(nameStart, end);
+            int rgb = parseInt(nextToken(nameStart, end), end);
+
+            if (nodeCount == nodeX.length) growNodes();
+            nodeX[nodeCount] = x;
+            nodeY[nodeCount] = y;
+            nodeRgb[nodeCount] = rgb;
+            nameOffsets[nodeCount] = names.put(buffer, nameStart, nameEnd, nodeCount);
+            nameLengths[nodeCount] = nameEnd - nameStart;
+            nodeCount++;
+        } else if (startsWith(start, end, "EDGE ")) {
+            int fromStart = start + 5, fromEnd = tokenEnd(fromStart, end);
+            int toStart = nextToken(fromStart, end), toEnd = tokenEnd(toStart, end);
+            int weightStart = nextToken(toStart, end);
+            int weight = parseInt(weightStart, end);
+            int directedStart = nextToken(weightStart, end);
+            boolean isDirected = isTrue(directedStart, tokenEnd(directedStart, end));
+            int rgb = parseInt(nextToken(directedStart, end), end);
+
+            int from = names.get(buffer, fromStart, fromEnd);
+            int to = names.get(buffer, toStart, toEnd);
+            if (from < 0 || to < 0) throw malformed("unknown node");
+            if (edgeCount == edgeFrom.length) allocateEdges(edgeCount * 2);
+            edgeFrom[edgeCount] = from;
+            edgeTo[edgeCount] = to;
+            edgeWeight[edgeCount] = weight;
+            edgeDirected[edgeCount] = isDirected;
+            edgeRgb[edgeCount] = rgb;
+            edgeCount++;
+        }
+    }
+
+    // Creates the elements from the columns in file order and hands them to the graph in one go
+    private void build() {
+        StringPool pool = StringPool.of(names.arena(), nameOffsets, nameLengths);
+        Node[] rows = new Node[nodeCount];
+        for (int row = 0; row < nodeCount; row++) {
+            Node node = new Node(nodeX[row], nodeY[row], pool, row);
+            node.setColor(colors.get(nodeRgb[row]));
+            rows[row] = node;
+        }
+        nodeX = nodeY = nodeRgb = null;
+        List<Edge> edges = new ArrayList<>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            Edge edge = new Edge(rows[edgeFrom[i]], rows[edgeTo[i]], edgeDirected[i], edgeWeight[i]);
+            edge.setColor(colors.get(edgeRgb[i]));
+            edges.add(edge);
+        }
+        edgeFrom = edgeTo = edgeWeight = edgeRgb = null;
+        edgeDirected = null;
+        graph.addNodes(Arrays.asList(rows));
+        graph.addEdges(edges);
+    }
+
+    private void growNodes() {
+        int capacity = nodeX.length * 2;
+        nodeX = Arrays.copyOf(nodeX, capacity);
+        nodeY = Arrays.copyOf(nodeY, capacity);
+        nodeRgb = Arrays.copyOf(nodeRgb, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+    }
+
+    private void allocateEdges(int capacity) {
+        edgeFrom = edgeFrom == null ? new int[capacity] : Arrays.copyOf(edgeFrom, capacity);
+        edgeTo = edgeTo == null ? new int[capacity] : Arrays.copyOf(edgeTo, capacity);
+        edgeWeight = edgeWeight == null ? new int[capacity] : Arrays.copyOf(edgeWeight, capacity);
+        edgeRgb = edgeRgb == null ? new int[capacity] : Arrays.copyOf(edgeRgb, capacity);
+        edgeDirected = edgeDirected == null ? new boolean[capacity] : Arrays.copyOf(edgeDirected, capacity);
+    }
+
+    private boolean startsWith(int start, int end, String prefix) {
+        if (end - start < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buffer[start + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private int tokenEnd(int pos, int end) {
+        while (pos < end && buffer[pos] != ' ') pos++;
+        return pos;
+    }
+
+    private int nextToken(int pos, int end) throws IOException {
+        pos = tokenEnd(pos, end);
+        if (pos >= end) throw malformed("missing field");
+        return pos + 1;
+    }
+
+    private int parseInt(int pos, int end) throws IOException {
+        boolean negative = pos < end && buffer[pos] == '-';
+        if (negative) pos++;
+        long value = 0;
+        int digits = 0;
+        for (; pos < end && buffer[pos] != ' '; pos++, digits++) {
+            int digit = buffer[pos] - '0';
+            if (digit < 0 || digit > 9 || digits > 10) throw malformed("invalid number");
+            value = value * 10 + digit;
+        }
+        if (negative) value = -value;
+        if (digits == 0 || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw malformed("invalid number");
+        return (int) value;
+    }
+
+    // Same rule as Boolean.parseBoolean: "true" in any case
+    private boolean isTrue(int start, int end) {
+        if (end - start != 4) return false;
+        return (buffer[start] | 0x20) == 't' && (buffer[start + 1] | 0x20) == 'r'
+                && (buffer[start + 2] | 0x20) == 'u' && (buffer[start + 3] | 0x20) == 'e';
+    }
+
+    private IOException malformed(String reason) {
+        return new IOException("Malformed graph file at line " + lineNumber + ": " + reason);
+    }
+
+    // Open-addressing map from UTF-8 name bytes to the row of the node last loaded with that name. Every name is
+    // copied into one byte arena, which later backs the names' string pool. A slot keeps hash, arena offset, length
+    // and row side by side, so a probe touches one cache line of the table plus the name bytes it compares.
+    private static final class NameTable {
+        private static final int STRIDE = 4;
+
+        private int[] table = new int[1024 * STRIDE];
+        private byte[] arena = new byte[1 << 16];
+        private int arenaSize;
+        private int size;
+
+        // Row of the last node with this name, or -1
+        int get(byte[] bytes, int start, int end) {
+            int slot = find(hash(bytes, start, end), bytes, start, end);
+            return table[slot + 3] - 1;
+        }
+
+        // Maps the name to the row and returns the arena offset of its bytes
+        int put(byte[] bytes, int start, int end, int row) {
+            int hash = hash(bytes, start, end);
+            int slot = find(hash, bytes, start, end);
+            if (table[slot + 3] != 0) {
+                table[slot + 3] = row + 1;
+                return table[slot + 1];
+            }
+            int length = end - start;
+            if (arenaSize + length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+            }
+            System.arraycopy(bytes, start, arena, arenaSize, length);
+            table[slot] = hash;
+            table[slot + 1] = arenaSize;
+            table[slot + 2] = length;
+            table[slot + 3] = row + 1;
+            arenaSize += length;
+            if (++size * 2 * STRIDE > table.length) grow();
+            return arenaSize - length;
+        }
+
+        byte[] arena() {
+            return Arrays.copyOf(arena, arenaSize);
+        }
+
+        // Index of the slot holding the name, or of the empty slot where it belongs; row + 1 is 0 in empty slots
+        private int find(int hash, byte[] bytes, int start, int end) {
+            int mask = table.length / STRIDE - 1;
+            int slot = (hash & mask) * STRIDE;
+            while (table[slot + 3] != 0 && (table[slot] != hash || !matches(slot, bytes, start, end))) {
+                slot = (slot + STRIDE) & (table.length - 1);
+            }
+            return slot;
+        }
+
+        private boolean matches(int slot, byte[] bytes, int start, int end) {
+            int offset = table[slot + 1];
+            return Arrays.equals(arena, offset, offset + table[slot + 2], bytes, start, end);
+        }
+
+        private void grow() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            int mask = table.length / STRIDE - 1;
+            for (int i = 0; i < old.length; i += STRIDE) {
+                if (old[i + 3] == 0) continue;
+                int slot = (old[i] & mask) * STRIDE;
+                while (table[slot + 3] != 0) slot = (slot + STRIDE) & (table.length - 1);
+                System.arraycopy(old, i, table, slot, STRIDE);
+            }
+        }
+
+        private static int hash(byte[] bytes, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) h = 31 * h + bytes[i];
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+}
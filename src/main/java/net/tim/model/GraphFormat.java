@@ -0,0 +1,42 @@
+package net.tim.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+
+public enum GraphFormat {
+    TEXT("graph", "Graph files"),
+    BINARY("gbin", "Binary graph files");
+
+    private final String extension;
+    private final String description;
+
+    GraphFormat(String extension, String description) {
+        this.extension = extension;
+        this.description = description;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Format implied by the file name, used when saving
+    public static GraphFormat forFile(File file) {
+        return file.getName().toLowerCase(Locale.ROOT).endsWith("." + BINARY.extension) ? BINARY : TEXT;
+    }
+
+    // Format implied by the file contents, used when loading
+    public static GraphFormat detect(File file) throws IOException {
+        byte[] magic = GraphBinaryFormat.MAGIC;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            return Arrays.equals(in.readNBytes(magic.length), magic) ? BINARY : TEXT;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package net.tim.model;
+
+import java.util.List;
+
+/**
+ * Changes to a {@link Graph}, reported after the model has been updated. Listeners run on the thread that made
+ * the change. Between {@link #batchStarted()} and {@link #batchFinished()} many events may arrive in a row, so a
+ * listener can defer expensive work until the batch is over.
+ */
+public interface GraphListener {
+    default void nodeAdded(Node node) {
+    }
+
+    // removedEdges are the incident edges that were removed with the node, already reported as gone
+    default void nodeRemoved(Node node, List<Edge> removedEdges) {
+    }
+
+    default void nodeMoved(Node node, int oldX, int oldY) {
+    }
+
+    default void nodeRenamed(Node node, String oldName) {
+    }
+
+    // Colour change
+    default void nodeChanged(Node node) {
+    }
+
+    default void edgeAdded(Edge edge) {
+    }
+
+    default void edgeRemoved(Edge edge) {
+    }
+
+    default void edgeWeightChanged(Edge edge, int oldWeight) {
+    }
+
+    // Colour change
+    default void edgeChanged(Edge edge) {
+    }
+
+    // Everything may have changed: the graph was cleared or loaded from a file
+    default void graphReset() {
+    }
+
+    default void batchStarted() {
+    }
+
+    default void batchFinished() {
+    }
+}
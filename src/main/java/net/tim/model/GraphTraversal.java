@@ -0,0 +1,181 @@
+package net.tim.model;
+
+import java.util.Arrays;
+
+/**
+ * Iterative traversals over a {@link CompactGraph}: depth-first, breadth-first, connectivity and strongly connected
+ * components. Visited state is a {@code long} bitset and all work arrays belong to the instance,
+ * so repeated calls on the same traversal allocate nothing. Not thread-safe; use one instance per thread.
+ * <p>
+ * With {@code forwardOnly} set, directed edges are only followed from source to target; otherwise every edge
+ * is walked both ways.
+ */
+public final class GraphTraversal {
+    private final CompactGraph graph;
+    private final int n;
+    private final long[] visited;
+    private final int[] queue;
+    private final int[] order;
+    private final int[] cursor;
+    private int orderSize;
+    private int[] lowLinks;
+    private int[] indices;
+    private int[] sccStack;
+    private long[] onStack;
+
+    public GraphTraversal(CompactGraph graph) {
+        this.graph = graph;
+        this.n = graph.nodeCount();
+        this.visited = new long[(n + 63) >>> 6];
+        this.queue = new int[n];
+        this.order = new int[n];
+        this.cursor = new int[n];
+    }
+
+    public boolean isVisited(int node) {
+        return (visited[node >>> 6] & (1L << node)) != 0;
+    }
+
+    // Nodes reached by the last traversal, in visiting order
+    public int visitedCount() {
+        return orderSize;
+    }
+
+    public int visitedNode(int i) {
+        return order[i];
+    }
+
+    public void reset() {
+        Arrays.fill(visited, 0);
+        orderSize = 0;
+    }
+
+    private void markVisited(int node) {
+        visited[node >>> 6] |= 1L << node;
+    }
+
+    private boolean follows(int arc, boolean forwardOnly) {
+        return !forwardOnly || !graph.isReverse(arc);
+    }
+
+    /** Preorder depth-first search from {@code start}; returns the number of nodes reached. */
+    public int depthFirst(int start, boolean forwardOnly) {
+        reset();
+        int size = 0;
+        queue[size] = start;
+        cursor[size++] = graph.firstArc(start);
+        markVisited(start);
+        order[orderSize++] = start;
+        while (size > 0) {
+            int v = queue[size - 1];
+            int arc = cursor[size - 1];
+            while (arc < graph.endArc(v) && (!follows(arc, forwardOnly) || isVisited(graph.target(arc)))) arc++;
+            if (arc == graph.endArc(v)) {
+                size--;
+                continue;
+            }
+            cursor[size - 1] = arc + 1;
+            int next = graph.target(arc);
+            markVisited(next);
+            order[orderSize++] = next;
+            queue[size] = next;
+            cursor[size++] = graph.firstArc(next);
+        }
+        return orderSize;
+    }
+
+    /** Breadth-first search from {@code start}; returns the number of nodes reached. */
+    public int breadthFirst(int start, boolean forwardOnly) {
+        reset();
+        int head = 0;
+        markVisited(start);
+        order[orderSize++] = start;
+        while (head < orderSize) {
+            int v = order[head++];
+            for (int arc = graph.firstArc(v); arc < graph.endArc(v); arc++) {
+                int next = graph.target(arc);
+                if (!follows(arc, forwardOnly) || isVisited(next)) continue;
+                markVisited(next);
+                order[orderSize++] = next;
+            }
+        }
+        return orderSize;
+    }
+
+    /** True if all nodes with at least one edge are connected, ignoring direction. */
+    public boolean isConnected() {
+        int start = 0;
+        while (start < n && graph.degree(start) == 0) start++;
+        if (start == n) return true;
+        breadthFirst(start, false);
+        for (int v = 0; v < n; v++) {
+            if (!isVisited(v) && graph.degree(v) > 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Labels each node with its strongly connected component (Tarjan, with an explicit stack);
+     * returns the number of components. Undirected edges count in both directions.
+     */
+    public int stronglyConnectedComponents(int[] labels) {
+        if (indices == null) {
+            lowLinks = new int[n];
+            indices = new int[n];
+            sccStack = new int[n];
+            onStack = new long[visited.length];
+        }
+        reset();
+        Arrays.fill(onStack, 0);
+        int nextIndex = 0, sccSize = 0, components = 0;
+        for (int root = 0; root < n; root++) {
+            if (isVisited(root)) continue;
+            int size = 0;
+            queue[size] = root;
+            cursor[size++] = graph.firstArc(root);
+            markVisited(root);
+            indices[root] = lowLinks[root] = nextIndex++;
+            sccStack[sccSize++] = root;
+            onStack[root >>> 6] |= 1L << root;
+
+            while (size > 0) {
+                int v = queue[size - 1];
+                int arc = cursor[size - 1];
+                boolean descended = false;
+                for (; arc < graph.endArc(v); arc++) {
+                    if (graph.isReverse(arc)) continue;
+                    int w = graph.target(arc);
+                    if (!isVisited(w)) {
+                        cursor[size - 1] = arc + 1;
+                        markVisited(w);
+                        indices[w] = lowLinks[w] = nextIndex++;
+                        sccStack[sccSize++] = w;
+                        onStack[w >>> 6] |= 1L << w;
+                        queue[size] = w;
+                        cursor[size++] = graph.firstArc(w);
+                        descended = true;
+                        break;
+                    }
+                    if ((onStack[w >>> 6] & (1L << w)) != 0) lowLinks[v] = Math.min(lowLinks[v], indices[w]);
+                }
+                if (descended) continue;
+
+                size--;
+                if (lowLinks[v] == indices[v]) {
+                    int w;
+                    do {
+                        w = sccStack[--sccSize];
+                        onStack[w >>> 6] &= ~(1L << w);
+                        labels[w] = components;
+                    } while (w != v);
+                    components++;
+                }
+                if (size > 0) {
+                    int parent = queue[size - 1];
+                    lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[v]);
+                }
+            }
+        }
+        return components;
+    }
+}
@@ -1,11 +1,22 @@
 package net.tim.model;
 
 import java.awt.Color;
+import java.util.ArrayList;
 
 public class Node {
-    public int x, y;
-    public String name;
-    public Color color;
+    // Changed only through moveTo() and setColor(), so the owning graph hears about every change
+    private int x, y;
+    private Color color;
+    int id = -1;
+    int index = -1;
+    // Graph the node currently belongs to, told about changes made through the setters
+    Graph owner;
+    ArrayList<Edge> outEdges, inEdges;
+    // Guarded by this: other threads, such as the action log, read names while the EDT renames or decodes them
+    private String name;
+    // Set for nodes loaded from a binary file: the name stays undecoded in the pool until first requested
+    private StringPool namePool;
+    private int nameRef;
 
     public Node(int x, int y, String name) {
         this.x = x;
@@ -14,13 +25,69 @@ public class Node {
         this.color = Color.BLACK;
     }
 
+    Node(int x, int y, StringPool namePool, int nameRef) {
+        this(x, y, null);
+        this.namePool = namePool;
+        this.nameRef = nameRef;
+    }
+
+    public synchronized String getName() {
+        if (namePool != null) {
+            name = namePool.decode(nameRef);
+            namePool = null;
+        }
+        return name;
+    }
+
+    // Length of the name in chars; while it is still undecoded in the pool, an upper bound that leaves it undecoded
+    public synchronized int nameLength() {
+        if (namePool != null) return namePool.length(nameRef);
+        return name == null ? 0 : name.length();
+    }
+
+    public void setName(String name) {
+        String oldName;
+        synchronized (this) {
+            oldName = owner == null ? null : getName();
+            this.name = name;
+            namePool = null;
+        }
+        if (owner != null) owner.fireNodeRenamed(this, oldName);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public Color getColor() {
+        return color;
+    }
+
     public void setColor(Color value) {
         color = value;
+        if (owner != null) owner.fireNodeChanged(this);
+    }
+
+    public void moveTo(int x, int y) {
+        if (x == this.x && y == this.y) return;
+        int oldX = this.x, oldY = this.y;
+        this.x = x;
+        this.y = y;
+        if (owner != null) owner.fireNodeMoved(this, oldX, oldY);
+    }
+
+    // Stable id assigned by the first graph the node is added to; -1 while unassigned
+    public int getId() {
+        return id;
     }
 
     @Override
     public String toString() {
-        return name;
+        return getName();
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package net.tim.model;
+
+@FunctionalInterface
+public interface ProgressListener {
+    ProgressListener NONE = (done, total) -> {
+    };
+
+    void onProgress(long done, long total);
+}
@@ -0,0 +1,53 @@
+package net.tim.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Node names of a binary graph file, decoded one at a time on request. The pool bytes and the name slices are
+ * copied out of the mapped file while it is open, so the file is neither kept mapped nor read again later, and
+ * saving over it is safe.
+ */
+final class StringPool {
+    private final byte[] bytes;
+    private final int[] offsets;
+    private final int[] lengths;
+
+    private StringPool(byte[] bytes, int[] offsets, int[] lengths) {
+        this.bytes = bytes;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    // Takes ownership of the arrays; row i is the slice at offsets[i] of lengths[i] bytes
+    static StringPool of(byte[] bytes, int[] offsets, int[] lengths) {
+        return new StringPool(bytes, offsets, lengths);
+    }
+
+    // Validates every name slice of the node table against the pool before anything is decoded
+    static StringPool copyOf(ByteBuffer nodeTable, int nodeCount, ByteBuffer pool) throws IOException {
+        byte[] bytes = new byte[pool.remaining()];
+        pool.get(0, bytes);
+        int[] offsets = new int[nodeCount], lengths = new int[nodeCount];
+        for (int row = 0; row < nodeCount; row++) {
+            int record = row * GraphBinaryFormat.NODE_RECORD_SIZE;
+            int offset = nodeTable.getInt(record + 12), length = nodeTable.getInt(record + 16);
+            if (offset < 0 || length < 0 || (long) offset + length > bytes.length) {
+                throw new IOException("Corrupt name of node record " + row);
+            }
+            offsets[row] = offset;
+            lengths[row] = length;
+        }
+        return new StringPool(bytes, offsets, lengths);
+    }
+
+    // Encoded length in bytes, never less than the decoded length in chars
+    int length(int row) {
+        return lengths[row];
+    }
+
+    String decode(int row) {
+        return new String(bytes, offsets[row], lengths[row], StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,23 @@
+package net.tim.model;
+
+import java.util.concurrent.CancellationException;
+
+// Passed into long-running computations so they can report progress and stop cooperatively
+public interface TaskMonitor extends ProgressListener {
+    TaskMonitor NONE = new TaskMonitor() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void onProgress(long done, long total) {
+        }
+    };
+
+    boolean isCancelled();
+
+    default void checkCancelled() {
+        if (isCancelled()) throw new CancellationException();
+    }
+}
@@ -2,15 +2,16 @@ package net.tim.transfer;
 
 import net.tim.controller.GraphController;
 import net.tim.model.Node;
+import net.tim.view.GraphPanel;
 
 import javax.swing.*;
 import java.awt.*;
 
 public class ValueImportTransferHandler extends TransferHandler {
     private final GraphController graphController;
-    private final JPanel panel;
+    private final GraphPanel panel;
 
-    public ValueImportTransferHandler(GraphController graphController, JPanel panel) {
+    public ValueImportTransferHandler(GraphController graphController, GraphPanel panel) {
         this.graphController = graphController;
         this.panel = panel;
     }
@@ -28,11 +29,10 @@ public class ValueImportTransferHandler extends TransferHandler {
 
         try {
             Node node = (Node) support.getTransferable().getTransferData(NodeTransferable.NODE_FLAVOR);
-            Point dropPoint = support.getDropLocation().getDropPoint();
+            Point dropPoint = panel.toWorld(support.getDropLocation().getDropPoint());
             String nodeName = JOptionPane.showInputDialog("Enter node name:");
             if (nodeName != null) {
                 graphController.addNode(dropPoint.x, dropPoint.y, nodeName);
-                panel.repaint();
                 return true;
             }
         } catch (Exception e) {
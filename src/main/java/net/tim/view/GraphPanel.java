@@ -2,21 +2,50 @@ package net.tim.view;
 
 import net.tim.controller.GraphController;
 import net.tim.model.Edge;
+import net.tim.model.GraphListener;
 import net.tim.model.Node;
 import net.tim.transfer.ValueImportTransferHandler;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-
-public class GraphPanel extends JPanel {
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GraphPanel extends JPanel implements GraphListener {
+    private static final int GRID_CELL_SIZE = 64;
+    private static final double MIN_SCALE = 0.02;
+    private static final double MAX_SCALE = 8;
+    private static final double ZOOM_STEP = 1.1;
+    private static final int REPAINT_DELAY_MS = 16;
+    // Damaged regions kept apart during a bulk update; beyond this they are merged into their bounds
+    private static final int MAX_BATCH_REGIONS = 256;
 
     private GraphController graphController;
+    private final SpatialIndex spatialIndex = new SpatialIndex(GRID_CELL_SIZE);
+    private final GraphRenderer renderer = new GraphRenderer(spatialIndex);
+    private final TileCache tileCache = new TileCache(renderer);
+    // World to screen: uniform scale plus an integer offset, so cached tiles line up with pixels
+    private final AffineTransform view = new AffineTransform();
+    private Point panStart;
+    // Screen area changed since the last repaint; edits within one frame are merged into a single repaint
+    private final Rectangle pendingDamage = new Rectangle();
+    private boolean damagePending;
+    // While above zero, edits only update the index, or mark it stale, and collect their damage in world
+    // coordinates; batchFinished() invalidates it once
+    private int bulkUpdates;
+    private final List<Rectangle> batchDamage = new ArrayList<>();
+    // Set when a node moved during a bulk update; the index is rebuilt once the update ends
+    private boolean indexStale;
+    private final Timer repaintTimer = new Timer(REPAINT_DELAY_MS, e -> flushDamage());
     private Node firstSelectedNode, secondSelectedNode, clickedNode, draggedNode;
     private Edge clickedEdge;
     private JPopupMenu nodeMenu, edgeMenu;
 
     public GraphPanel() {
+        repaintTimer.setRepeats(false);
         initializeMenus();
         addMouseListeners();
     }
@@ -50,8 +79,6 @@ public class GraphPanel extends JPanel {
 
     private void addMouseListeners() {
         addMouseListener(new MouseAdapter() {
-            private int oldX, oldY;
-
             @Override
             public void mouseClicked(MouseEvent e) {
                 handleMouseClick(e);
@@ -60,10 +87,11 @@ public class GraphPanel extends JPanel {
             @Override
             public void mousePressed(MouseEvent e) {
                 if (SwingUtilities.isLeftMouseButton(e)) {
-                    draggedNode = getNodeAt(e.getX(), e.getY());
+                    draggedNode = getNodeAt(e.getPoint());
                     if (draggedNode != null) {
-                        oldX = draggedNode.x;
-                        oldY = draggedNode.y;
+                        graphController.beginGesture();
+                    } else {
+                        panStart = e.getPoint();
                     }
                 }
             }
@@ -71,9 +99,10 @@ public class GraphPanel extends JPanel {
             @Override
             public void mouseReleased(MouseEvent e) {
                 if (draggedNode != null) {
-                    graphController.moveNode(draggedNode, draggedNode.x, draggedNode.y, oldX, oldY);
+                    graphController.endGesture();
                     draggedNode = null;
                 }
+                panStart = null;
             }
         });
 
@@ -81,17 +110,57 @@ public class GraphPanel extends JPanel {
             @Override
             public void mouseDragged(MouseEvent e) {
                 if (draggedNode != null) {
-                    draggedNode.x = Math.max(0, Math.min(e.getX(), getWidth()));
-                    draggedNode.y = Math.max(0, Math.min(e.getY(), getHeight()));
-                    repaint();
+                    // Every step is recorded; the history merges the steps of one drag into a single undo entry
+                    Point world = toWorld(e.getPoint());
+                    if (world.x != draggedNode.getX() || world.y != draggedNode.getY()) {
+                        graphController.moveNode(draggedNode, world.x, world.y, draggedNode.getX(), draggedNode.getY());
+                    }
+                } else if (panStart != null) {
+                    pan(e.getX() - panStart.x, e.getY() - panStart.y);
+                    panStart = e.getPoint();
                 }
             }
         });
+
+        addMouseWheelListener(e -> zoom(e.getPoint(), Math.pow(ZOOM_STEP, -e.getPreciseWheelRotation())));
+    }
+
+    public void pan(int dx, int dy) {
+        view.preConcatenate(AffineTransform.getTranslateInstance(dx, dy));
+        repaint();
+    }
+
+    // Zooms by factor while keeping the world point under the cursor in place
+    public void zoom(Point anchor, double factor) {
+        double scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, view.getScaleX() * factor));
+        Point2D world = toWorld2D(anchor);
+        double offsetX = Math.round(anchor.x - world.getX() * scale), offsetY = Math.round(anchor.y - world.getY() * scale);
+        view.setTransform(scale, 0, 0, scale, offsetX, offsetY);
+        repaint();
+    }
+
+    public double getScale() {
+        return view.getScaleX();
+    }
+
+    public Point toWorld(Point screen) {
+        Point2D world = toWorld2D(screen);
+        return new Point((int) Math.round(world.getX()), (int) Math.round(world.getY()));
+    }
+
+    private Point2D toWorld2D(Point screen) {
+        return new Point2D.Double((screen.x - view.getTranslateX()) / view.getScaleX(),
+                (screen.y - view.getTranslateY()) / view.getScaleX());
+    }
+
+    public Point toScreen(Point world) {
+        return new Point((int) Math.round(world.x * view.getScaleX() + view.getTranslateX()),
+                (int) Math.round(world.y * view.getScaleX() + view.getTranslateY()));
     }
 
     private void handleMouseClick(MouseEvent e) {
         if (SwingUtilities.isLeftMouseButton(e)) {
-            Node clickedNode = getNodeAt(e.getX(), e.getY());
+            Node clickedNode = getNodeAt(e.getPoint());
             if (clickedNode != null) {
                 if (clickedNode.equals(firstSelectedNode)) {
                     firstSelectedNode = null;
@@ -105,8 +174,8 @@ public class GraphPanel extends JPanel {
             }
             repaint();
         } else if (SwingUtilities.isRightMouseButton(e)) {
-            clickedNode = getNodeAt(e.getX(), e.getY());
-            clickedEdge = getEdgeAt(e.getX(), e.getY());
+            clickedNode = getNodeAt(e.getPoint());
+            clickedEdge = getEdgeAt(e.getPoint());
             if (clickedNode != null) {
                 nodeMenu.show(e.getComponent(), e.getX(), e.getY());
             } else if (clickedEdge != null) {
@@ -117,7 +186,7 @@ public class GraphPanel extends JPanel {
 
     private void setNodeColor() {
         if (clickedNode != null) {
-            Color newColor = JColorChooser.showDialog(null, "Choose Node Color", clickedNode.color);
+            Color newColor = JColorChooser.showDialog(null, "Choose Node Color", clickedNode.getColor());
             if (newColor != null) {
                 graphController.setNodeColor(clickedNode, newColor);
             }
@@ -126,7 +195,7 @@ public class GraphPanel extends JPanel {
 
     private void setEdgeColor() {
         if (clickedEdge != null) {
-            Color newColor = JColorChooser.showDialog(null, "Choose Edge Color", clickedEdge.color);
+            Color newColor = JColorChooser.showDialog(null, "Choose Edge Color", clickedEdge.getColor());
             if (newColor != null) {
                 graphController.setEdgeColor(clickedEdge, newColor);
             }
@@ -138,7 +207,6 @@ public class GraphPanel extends JPanel {
             String newName = JOptionPane.showInputDialog("Enter new name:");
             if (newName != null && !newName.trim().isEmpty()) {
                 graphController.renameNode(clickedNode, newName);
-                repaint();
             }
         }
     }
@@ -149,8 +217,8 @@ public class GraphPanel extends JPanel {
             if (clickedNode.equals(firstSelectedNode) || clickedNode.equals(secondSelectedNode)) {
                 firstSelectedNode = null;
                 secondSelectedNode = null;
+                repaint();
             }
-            repaint();
         }
     }
 
@@ -160,7 +228,6 @@ public class GraphPanel extends JPanel {
             if (weightStr != null) {
                 try {
                     graphController.setEdgeWeight(clickedEdge, Integer.parseInt(weightStr));
-                    repaint();
                 } catch (NumberFormatException e) {
                     JOptionPane.showMessageDialog(this, "Invalid weight.");
                 }
@@ -171,7 +238,6 @@ public class GraphPanel extends JPanel {
     private void deleteEdge() {
         if (clickedEdge != null) {
             graphController.removeEdge(clickedEdge);
-            repaint();
         }
     }
 
@@ -196,92 +262,222 @@ public class GraphPanel extends JPanel {
         }
     }
 
-    private Node getNodeAt(int x, int y) {
-        return graphController.getNodes().stream()
-                .filter(node -> Math.abs(node.x - x) < 10 && Math.abs(node.y - y) < 10)
-                .findFirst().orElse(null);
+    public void markShortestPath() {
+        if (firstSelectedNode != null && secondSelectedNode != null) {
+            Node from = firstSelectedNode, to = secondSelectedNode;
+            graphController.markShortestPath(from, to, path -> {
+                if (path == null) {
+                    JOptionPane.showMessageDialog(this, "There is no route from " + from.getName() + " to " + to.getName() + ".");
+                } else if (path.isNegativeCycle()) {
+                    JOptionPane.showMessageDialog(this, "A negative cycle is reachable from " + from.getName()
+                            + ", so no route to " + to.getName() + " is shortest.");
+                }
+            });
+        } else {
+            JOptionPane.showMessageDialog(this, "Please select two nodes first.");
+        }
+    }
+
+    // Hit radius is 10 world units, but never less than 4 pixels on screen
+    private int hitRadius() {
+        return (int) Math.ceil(Math.max(10, 4 / view.getScaleX()));
     }
 
-    private Edge getEdgeAt(int x, int y) {
-        return graphController.getEdges().stream()
-                .filter(edge -> pointToLineDistance(x, y, edge.from.x, edge.from.y, edge.to.x, edge.to.y) < 10)
-                .findFirst().orElse(null);
+    private Node getNodeAt(Point screen) {
+        Point world = toWorld(screen);
+        return spatialIndex.nodeAt(world.x, world.y, hitRadius());
     }
 
-    private double pointToLineDistance(int x, int y, int x1, int y1, int x2, int y2) {
-        double A = x - x1, B = y - y1, C = x2 - x1, D = y2 - y1;
-        double dot = A * C + B * D, len_sq = C * C + D * D, param = len_sq != 0 ? dot / len_sq : -1;
-        double xx = param < 0 ? x1 : param > 1 ? x2 : x1 + param * C;
-        double yy = param < 0 ? y1 : param > 1 ? y2 : y1 + param * D;
-        return Math.sqrt((x - xx) * (x - xx) + (y - yy) * (y - yy));
+    private Edge getEdgeAt(Point screen) {
+        Point world = toWorld(screen);
+        return spatialIndex.edgeAt(world.x, world.y, hitRadius());
     }
 
+    // Graph events keep the hit-testing index in step with the model and drop the cached tiles that show what changed
     @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        graphController.getEdges().forEach(edge -> drawEdge(g, edge));
-        graphController.getNodes().forEach(node -> drawNode(g, node));
-        highlightSelectedNodes(g);
+    public void nodeAdded(Node node) {
+        spatialIndex.addNode(node);
+        damageNode(node.getX(), node.getY(), node.getName());
     }
 
-    private void drawEdge(Graphics g, Edge edge) {
-        g.setColor(edge.color);
-        g.drawLine(edge.from.x, edge.from.y, edge.to.x, edge.to.y);
-        if (edge.isDirected) drawArrow(g, edge.from.x, edge.from.y, edge.to.x, edge.to.y);
-        if (edge.weight != 1) {
-            g.setColor(Color.BLUE);
-            g.setFont(new Font("Arial", Font.BOLD, 14));
-            g.drawString(String.valueOf(edge.weight), (edge.from.x + edge.to.x) / 2, (edge.from.y + edge.to.y) / 2);
+    @Override
+    public void nodeRemoved(Node node, List<Edge> removedEdges) {
+        Point position = spatialIndex.indexedPosition(node);
+        if (position != null) damageNode(position.x, position.y, node.getName());
+        spatialIndex.removeNode(node);
+    }
+
+    @Override
+    public void nodeMoved(Node node, int oldX, int oldY) {
+        // A batch may move every node, as layout frames do; one rebuild afterwards is far cheaper than re-filing each
+        if (bulkUpdates > 0) {
+            indexStale = true;
+            return;
+        }
+        Point oldPosition = spatialIndex.indexedPosition(node);
+        String name = node.getName();
+        if (oldPosition != null) damageNode(oldPosition.x, oldPosition.y, name);
+        damageNode(node.getX(), node.getY(), name);
+        spatialIndex.updateNode(node);
+        for (Edge edge : graphController.getIncidentEdges(node)) {
+            damageEdge(edge);
+            spatialIndex.updateEdge(edge);
+            damageEdge(edge);
         }
     }
 
-    private void drawNode(Graphics g, Node node) {
-        g.setColor(node.color);
-        g.fillOval(node.x - 10, node.y - 10, 20, 20);
-        g.setColor(Color.BLACK);
-        g.drawString(node.name, node.x - 10, node.y - 15);
+    @Override
+    public void nodeChanged(Node node) {
+        // Only the colour changes, which the name is not drawn in
+        damageNode(node.getX(), node.getY(), null);
     }
 
-    private void highlightSelectedNodes(Graphics g) {
-        if (firstSelectedNode != null) {
-            g.setColor(Color.BLUE);
-            g.drawOval(firstSelectedNode.x - 15, firstSelectedNode.y - 15, 30, 30);
+    @Override
+    public void nodeRenamed(Node node, String oldName) {
+        spatialIndex.updateLabel(node);
+        damageNode(node.getX(), node.getY(), oldName);
+        damageNode(node.getX(), node.getY(), node.getName());
+    }
+
+    @Override
+    public void edgeAdded(Edge edge) {
+        spatialIndex.addEdge(edge);
+        damageEdge(edge);
+    }
+
+    @Override
+    public void edgeRemoved(Edge edge) {
+        damageEdge(edge);
+        spatialIndex.removeEdge(edge);
+    }
+
+    @Override
+    public void edgeChanged(Edge edge) {
+        damageEdge(edge);
+    }
+
+    @Override
+    public void edgeWeightChanged(Edge edge, int oldWeight) {
+        spatialIndex.updateLabel(edge);
+        damageEdge(spatialIndex.indexedBounds(edge), oldWeight);
+        damageEdge(edge);
+    }
+
+    @Override
+    public void batchStarted() {
+        bulkUpdates++;
+    }
+
+    @Override
+    public void batchFinished() {
+        if (--bulkUpdates > 0) return;
+        // Moves during the batch were not tracked, and damage larger than the panel costs as much as a full repaint
+        boolean everything = indexStale || onScreenArea(bounds(batchDamage)) > (double) getWidth() * getHeight();
+        if (indexStale) {
+            spatialIndex.rebuild(graphController.getNodes(), graphController.getEdges());
+            indexStale = false;
         }
-        if (secondSelectedNode != null) {
-            g.setColor(Color.GREEN);
-            g.drawOval(secondSelectedNode.x - 15, secondSelectedNode.y - 15, 30, 30);
+        if (everything) {
+            tileCache.clear();
+            repaint();
+        } else {
+            batchDamage.forEach(this::damage);
         }
+        batchDamage.clear();
+    }
+
+    @Override
+    public void graphReset() {
+        spatialIndex.rebuild(graphController.getNodes(), graphController.getEdges());
+        tileCache.clear();
+        repaint();
     }
 
-    private void drawArrow(Graphics g, int x1, int y1, int x2, int y2) {
-        int dx = x2 - x1, dy = y2 - y1;
-        double D = Math.sqrt(dx * dx + dy * dy);
-        double arrowLength = 20;
-        double arrowWidth = 7;
-        double xm = D - arrowLength, xn = xm, ym = arrowWidth, yn = -arrowWidth, x;
-        double sin = dy / D, cos = dx / D;
-        double nodeRadius = 9;
+    // Labels are measured in the fonts the tiles draw them in, so the damage covers exactly what was drawn
+    private void damageNode(int x, int y, String name) {
+        damage(GraphRenderer.nodeBounds(x, y, name, getFontMetrics(getFont())));
+    }
 
-        D -= nodeRadius;
-        x2 = (int) (x1 + D * cos);
-        y2 = (int) (y1 + D * sin);
-        x = xm * cos - ym * sin + x1;
-        ym = xm * sin + ym * cos + y1;
-        xm = x;
-        x = xn * cos - yn * sin + x1;
-        yn = xn * sin + yn * cos + y1;
-        xn = x;
+    // Damages the edge as last indexed, which is where it was drawn before a move that has not been reported yet
+    private void damageEdge(Edge edge) {
+        damageEdge(spatialIndex.indexedBounds(edge), edge.getWeight());
+    }
 
-        // Draw the arrowhead
-        int[] xpoints = {x2, (int) xm, (int) xn};
-        int[] ypoints = {y2, (int) ym, (int) yn};
-        g.fillPolygon(xpoints, ypoints, 3);
-        g.drawLine(x1, y1, x2, y2);
+    private void damageEdge(Rectangle segment, int weight) {
+        if (segment == null) return;
+        damage(GraphRenderer.edgeBounds(segment, weight, getFontMetrics(GraphRenderer.WEIGHT_FONT)));
     }
 
+    private void damage(Rectangle world) {
+        if (bulkUpdates > 0) {
+            if (batchDamage.size() == MAX_BATCH_REGIONS) {
+                Rectangle bounds = bounds(batchDamage);
+                batchDamage.clear();
+                batchDamage.add(bounds);
+            }
+            batchDamage.add(world);
+            return;
+        }
+        tileCache.invalidate(world);
+        Point topLeft = toScreen(world.getLocation());
+        Point bottomRight = toScreen(new Point(world.x + world.width, world.y + world.height));
+        Rectangle screen = new Rectangle(topLeft.x - 1, topLeft.y - 1, bottomRight.x - topLeft.x + 2, bottomRight.y - topLeft.y + 2);
+        if (damagePending) {
+            pendingDamage.add(screen);
+        } else {
+            pendingDamage.setBounds(screen);
+            damagePending = true;
+            repaintTimer.start();
+        }
+    }
+
+    private static Rectangle bounds(List<Rectangle> regions) {
+        Rectangle bounds = new Rectangle();
+        for (Rectangle region : regions) {
+            if (bounds.isEmpty()) bounds.setBounds(region);
+            else bounds.add(region);
+        }
+        return bounds;
+    }
+
+    private double onScreenArea(Rectangle world) {
+        return world.getWidth() * world.getHeight() * view.getScaleX() * view.getScaleX();
+    }
+
+    private void flushDamage() {
+        damagePending = false;
+        repaint(pendingDamage);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        Rectangle visible = g.getClipBounds();
+        if (visible == null) visible = new Rectangle(0, 0, getWidth(), getHeight());
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            tileCache.paint(g2, visible, view, getBackground(), getFont());
+            g2.transform(view);
+            highlightSelectedNodes(g2);
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private void highlightSelectedNodes(Graphics g) {
+        if (firstSelectedNode != null) {
+            g.setColor(Color.BLUE);
+            g.drawOval(firstSelectedNode.getX() - 15, firstSelectedNode.getY() - 15, 30, 30);
+        }
+        if (secondSelectedNode != null) {
+            g.setColor(Color.GREEN);
+            g.drawOval(secondSelectedNode.getX() - 15, secondSelectedNode.getY() - 15, 30, 30);
+        }
+    }
 
     public void setGraphController(GraphController graphController) {
         this.graphController = graphController;
+        graphReset();
         setTransferHandler(new ValueImportTransferHandler(graphController, this));
     }
 }
\ No newline at end of file
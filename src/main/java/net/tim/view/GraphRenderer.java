@@ -0,0 +1,249 @@
+package net.tim.view;
+
+import net.tim.model.Edge;
+import net.tim.model.Node;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draws the part of the graph that overlaps a world-space area, looked up through the {@link SpatialIndex}.
+ * Detail drops with the scale of the target transform: labels and arrowheads disappear when zoomed out, and
+ * edges whose ends land on the same few screen pixels are drawn once per bundle.
+ */
+class GraphRenderer {
+    static final int NODE_RADIUS = 10;
+    // Names start this far left of their node's centre, with the baseline this far above it
+    static final int NAME_OFFSET_X = -10;
+    static final int NAME_OFFSET_Y = -15;
+    // How far an arrowhead can stick out of its edge's bounding box
+    static final int ARROW_REACH = 8;
+
+    static final Font WEIGHT_FONT = new Font("Arial", Font.BOLD, 14);
+    private static final Stroke EDGE_STROKE = new BasicStroke(1f);
+    private static final double LABEL_MIN_SCALE = 0.6;
+    private static final double ARROW_MIN_SCALE = 0.4;
+    private static final double OUTLINE_MIN_SCALE = 0.25;
+    private static final double BUNDLE_MAX_SCALE = ARROW_MIN_SCALE;
+    private static final int BUNDLE_PIXELS = 3;
+
+    private final SpatialIndex spatialIndex;
+    private final LongSet drawnBundles = new LongSet();
+    private final Map<Color, Path2D.Float> edgePaths = new HashMap<>();
+    private final List<Edge> labelledEdges = new ArrayList<>();
+    private final List<Node> labelledNodes = new ArrayList<>();
+
+    GraphRenderer(SpatialIndex spatialIndex) {
+        this.spatialIndex = spatialIndex;
+    }
+
+    void paint(Graphics2D g, Rectangle area) {
+        double scale = Math.abs(g.getTransform().getScaleX());
+        boolean labels = scale >= LABEL_MIN_SCALE;
+        boolean arrows = scale >= ARROW_MIN_SCALE;
+        boolean bundle = scale < BUNDLE_MAX_SCALE;
+        Font nameFont = g.getFont();
+
+        g.setStroke(EDGE_STROKE);
+        drawnBundles.clear();
+        // Weight labels start at the edge's midpoint and run right, so an edge can reach into the area from the
+        // left by the widest weight label indexed
+        FontMetrics weightMetrics = g.getFontMetrics(WEIGHT_FONT);
+        Rectangle edgeArea = new Rectangle(area);
+        edgeArea.grow(Math.max(ARROW_REACH, spatialIndex.maxWeightLength() * widestDigit(weightMetrics)),
+                Math.max(ARROW_REACH, weightMetrics.getMaxAscent() + weightMetrics.getMaxDescent()));
+        if (bundle) {
+            // Zoomed out edges are bare lines: merge them into one path per colour and stroke each path once
+            spatialIndex.forEachEdge(edgeArea, edge -> {
+                if (!drawnBundles.add(bundleKey(edge, scale))) return;
+                Path2D.Float path = edgePaths.computeIfAbsent(edge.getColor(), color -> new Path2D.Float());
+                path.moveTo(edge.getFrom().getX(), edge.getFrom().getY());
+                path.lineTo(edge.getTo().getX(), edge.getTo().getY());
+            });
+            edgePaths.forEach((color, path) -> {
+                g.setColor(color);
+                g.draw(path);
+            });
+            edgePaths.clear();
+        } else {
+            spatialIndex.forEachEdge(edgeArea, edge -> {
+                drawEdge(g, edge, arrows);
+                if (labels && edge.getWeight() != 1) labelledEdges.add(edge);
+            });
+        }
+
+        // Likewise a node left of the area can reach into it with its name, up to the longest name indexed
+        FontMetrics nameMetrics = g.getFontMetrics(nameFont);
+        int reachRight = Math.max(NODE_RADIUS, NAME_OFFSET_X + spatialIndex.maxNameLength() * widestChar(nameMetrics));
+        int reachUp = Math.max(NODE_RADIUS, nameMetrics.getMaxAscent() - NAME_OFFSET_Y);
+        Rectangle nodeArea = new Rectangle(area.x - reachRight, area.y - NODE_RADIUS,
+                area.width + reachRight + Math.max(NODE_RADIUS, -NAME_OFFSET_X), area.height + NODE_RADIUS + reachUp);
+        boolean outlines = scale >= OUTLINE_MIN_SCALE;
+        spatialIndex.forEachNode(nodeArea, node -> {
+            drawNode(g, node, outlines);
+            if (labels) labelledNodes.add(node);
+        });
+        drawLabels(g, nameFont);
+    }
+
+    // Labels go on top of all shapes, so no edge or node is ever drawn over one
+    private void drawLabels(Graphics2D g, Font nameFont) {
+        try {
+            g.setColor(Color.BLUE);
+            g.setFont(WEIGHT_FONT);
+            for (Edge edge : labelledEdges) {
+                Node from = edge.getFrom(), to = edge.getTo();
+                g.drawString(String.valueOf(edge.getWeight()), (from.getX() + to.getX()) / 2, (from.getY() + to.getY()) / 2);
+            }
+            g.setColor(Color.BLACK);
+            g.setFont(nameFont);
+            for (Node node : labelledNodes) {
+                String name = node.getName();
+                if (name != null) g.drawString(name, node.getX() + NAME_OFFSET_X, node.getY() + NAME_OFFSET_Y);
+            }
+        } finally {
+            labelledEdges.clear();
+            labelledNodes.clear();
+        }
+    }
+
+    /** World area covered by a node at (x, y) and, unless null, its name drawn in the font of {@code nameMetrics}. */
+    static Rectangle nodeBounds(int x, int y, String name, FontMetrics nameMetrics) {
+        Rectangle bounds = new Rectangle(x - NODE_RADIUS, y - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+        if (name != null) bounds.add(labelBounds(name, x + NAME_OFFSET_X, y + NAME_OFFSET_Y, nameMetrics));
+        return bounds;
+    }
+
+    /** World area covered by an edge with the given segment bounds and weight, arrowhead and weight label included. */
+    static Rectangle edgeBounds(Rectangle segment, int weight, FontMetrics weightMetrics) {
+        Rectangle bounds = new Rectangle(segment);
+        bounds.grow(ARROW_REACH, ARROW_REACH);
+        bounds.add(labelBounds(String.valueOf(weight), (int) segment.getCenterX(), (int) segment.getCenterY(), weightMetrics));
+        return bounds;
+    }
+
+    // A pixel of slack all round covers glyph overhang and the midpoint rounding differently from the renderer's
+    private static Rectangle labelBounds(String label, int x, int baseline, FontMetrics metrics) {
+        Rectangle bounds = new Rectangle(x, baseline - metrics.getMaxAscent(), metrics.stringWidth(label),
+                metrics.getMaxAscent() + metrics.getMaxDescent());
+        bounds.grow(1, 1);
+        return bounds;
+    }
+
+    // Upper bound on the advance of any one char in the font
+    static int widestChar(FontMetrics metrics) {
+        int widest = metrics.getMaxAdvance();
+        if (widest > 0) return widest;
+        for (int width : metrics.getWidths()) widest = Math.max(widest, width);
+        return widest;
+    }
+
+    // Widest char a weight label can contain
+    static int widestDigit(FontMetrics metrics) {
+        int widest = metrics.charWidth('-');
+        for (char digit = '0'; digit <= '9'; digit++) widest = Math.max(widest, metrics.charWidth(digit));
+        return widest;
+    }
+
+    // Both endpoints snapped to a coarse screen grid; edges with the same key would draw over each other
+    private static long bundleKey(Edge edge, double scale) {
+        double cell = BUNDLE_PIXELS / scale;
+        Node from = edge.getFrom(), to = edge.getTo();
+        long fromX = (long) Math.floor(from.getX() / cell) & 0xFFFF, fromY = (long) Math.floor(from.getY() / cell) & 0xFFFF;
+        long toX = (long) Math.floor(to.getX() / cell) & 0xFFFF, toY = (long) Math.floor(to.getY() / cell) & 0xFFFF;
+        if (!edge.isDirected() && (fromX > toX || (fromX == toX && fromY > toY))) {
+            long swapX = fromX, swapY = fromY;
+            fromX = toX;
+            fromY = toY;
+            toX = swapX;
+            toY = swapY;
+        }
+        return fromX << 48 | fromY << 32 | toX << 16 | toY;
+    }
+
+    private void drawEdge(Graphics2D g, Edge edge, boolean arrows) {
+        g.setColor(edge.getColor());
+        Node from = edge.getFrom(), to = edge.getTo();
+        g.drawLine(from.getX(), from.getY(), to.getX(), to.getY());
+        if (edge.isDirected() && arrows) drawArrow(g, from.getX(), from.getY(), to.getX(), to.getY());
+    }
+
+    private void drawNode(Graphics2D g, Node node, boolean outlines) {
+        g.setColor(node.getColor());
+        if (outlines) {
+            g.fillOval(node.getX() - NODE_RADIUS, node.getY() - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+        } else {
+            g.fillRect(node.getX() - NODE_RADIUS, node.getY() - NODE_RADIUS, 2 * NODE_RADIUS, 2 * NODE_RADIUS);
+        }
+    }
+
+    private void drawArrow(Graphics g, int x1, int y1, int x2, int y2) {
+        int dx = x2 - x1, dy = y2 - y1;
+        double D = Math.sqrt(dx * dx + dy * dy);
+        if (D == 0) return;
+        double arrowLength = 20;
+        double arrowWidth = 7;
+        double xm = D - arrowLength, xn = xm, ym = arrowWidth, yn = -arrowWidth, x;
+        double sin = dy / D, cos = dx / D;
+        double nodeRadius = 9;
+
+        D -= nodeRadius;
+        x2 = (int) (x1 + D * cos);
+        y2 = (int) (y1 + D * sin);
+        x = xm * cos - ym * sin + x1;
+        ym = xm * sin + ym * cos + y1;
+        xm = x;
+        x = xn * cos - yn * sin + x1;
+        yn = xn * sin + yn * cos + y1;
+        xn = x;
+
+        // Draw the arrowhead
+        int[] xpoints = {x2, (int) xm, (int) xn};
+        int[] ypoints = {y2, (int) ym, (int) yn};
+        g.fillPolygon(xpoints, ypoints, 3);
+        g.drawLine(x1, y1, x2, y2);
+    }
+
+    // Open-addressing set of longs, cleared and refilled on every frame without allocating
+    private static final class LongSet {
+        private long[] keys = new long[1024];
+        private boolean[] used = new boolean[1024];
+        private int size;
+
+        boolean add(long key) {
+            if (size * 2 >= keys.length) grow();
+            int mask = keys.length - 1;
+            int slot = (int) (key * 0x9E3779B97F4A7C15L >>> 40) & mask;
+            while (used[slot]) {
+                if (keys[slot] == key) return false;
+                slot = (slot + 1) & mask;
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+            return true;
+        }
+
+        void clear() {
+            if (size == 0) return;
+            Arrays.fill(used, false);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            boolean[] oldUsed = used;
+            keys = new long[oldKeys.length * 2];
+            used = new boolean[oldKeys.length * 2];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldUsed[i]) add(oldKeys[i]);
+            }
+        }
+    }
+}
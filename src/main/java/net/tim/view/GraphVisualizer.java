@@ -1,7 +1,11 @@
 package net.tim.view;
 
+import net.tim.controller.AlgorithmListener;
+import net.tim.controller.AlgorithmService;
+import net.tim.algorithm.HamiltonianResult;
 import net.tim.controller.GraphController;
 import net.tim.model.Graph;
+import net.tim.model.GraphFormat;
 import net.tim.model.Node;
 import net.tim.transfer.ValueExportTransferHandler;
 
@@ -12,6 +16,7 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 
 public class GraphVisualizer extends JFrame {
     private final Graph graph;
@@ -36,27 +41,84 @@ public class GraphVisualizer extends JFrame {
         JMenu fileMenu = new JMenu("File");
         JMenuItem saveMenuItem = new JMenuItem("Save");
         JMenuItem loadMenuItem = new JMenuItem("Load");
+        JMenuItem convertMenuItem = new JMenuItem("Convert...");
         JMenuItem resetMenuItem = new JMenuItem("Reset");
 
         JMenu algorithmsMenu = new JMenu("Algorithms");
         JMenuItem markEulerianMenuItem = new JMenuItem("Mark Eulerian");
         JMenuItem markHamiltonianMenuItem = new JMenuItem("Mark Hamiltonian");
         JMenuItem colorGraphMenuItem = new JMenuItem("Color Graph");
+        JMenuItem shortestPathMenuItem = new JMenuItem("Shortest Path");
+        JMenuItem spanningTreeMenuItem = new JMenuItem("Minimum Spanning Tree");
+        JMenuItem autoLayoutMenuItem = new JMenuItem("Auto Layout");
+        JMenuItem eccentricityMenuItem = new JMenuItem("Color by Eccentricity");
+        JMenuItem exportDistancesMenuItem = new JMenuItem("Export Distances...");
+        JMenuItem taskStatusMenuItem = new JMenuItem("No algorithm running");
+        JMenuItem cancelTaskMenuItem = new JMenuItem("Cancel");
+        taskStatusMenuItem.setEnabled(false);
+        cancelTaskMenuItem.setEnabled(false);
 
 
         saveMenuItem.addActionListener(e -> saveGraph());
         loadMenuItem.addActionListener(e -> loadGraph());
+        convertMenuItem.addActionListener(e -> convertGraph());
         resetMenuItem.addActionListener(e -> graphController.resetGraph());
         markEulerianMenuItem.addActionListener(e -> graphController.markEulerian());
-        markHamiltonianMenuItem.addActionListener(e -> graphController.markHamiltonian());
-        colorGraphMenuItem.addActionListener(e -> graphController.colorGraph());
+        markHamiltonianMenuItem.addActionListener(e -> graphController.markHamiltonian(finding ->
+                JOptionPane.showMessageDialog(this, describe(finding))));
+        colorGraphMenuItem.addActionListener(e -> graphController.colorGraph(result ->
+                JOptionPane.showMessageDialog(this, "Colors used: " + result.colorCount())));
+        shortestPathMenuItem.addActionListener(e -> graphPanel.markShortestPath());
+        spanningTreeMenuItem.addActionListener(e -> graphController.markMinimumSpanningForest(forest ->
+                JOptionPane.showMessageDialog(this, "Total weight: " + forest.weight()
+                        + (forest.trees() > 1 ? " (" + forest.trees() + " trees)" : ""))));
+        autoLayoutMenuItem.addActionListener(e -> graphController.autoLayout());
+        eccentricityMenuItem.addActionListener(e -> graphController.colorByEccentricity(matrix ->
+                JOptionPane.showMessageDialog(this, matrix == null
+                        ? "The graph contains a negative cycle."
+                        : "Diameter: " + matrix.diameter())));
+        exportDistancesMenuItem.addActionListener(e -> exportDistances());
+        cancelTaskMenuItem.addActionListener(e -> graphController.getAlgorithmService().cancelAll());
+        graphController.getAlgorithmService().addListener(new AlgorithmListener() {
+            @Override
+            public void taskStarted(AlgorithmService.RunningTask task) {
+                taskStatusMenuItem.setText("Running: " + task.getName());
+                cancelTaskMenuItem.setEnabled(true);
+            }
+
+            @Override
+            public void taskProgress(AlgorithmService.RunningTask task, double fraction) {
+                taskStatusMenuItem.setText("Running: " + task.getName() + " (" + Math.round(fraction * 100) + "%)");
+            }
+
+            @Override
+            public void taskFinished(AlgorithmService.RunningTask task) {
+                String outcome = switch (task.getOutcome()) {
+                    case CANCELLED -> "cancelled";
+                    case FAILED -> "failed";
+                    default -> "finished";
+                };
+                taskStatusMenuItem.setText(task.getName() + " " + outcome + " after " + task.getElapsedNanos() / 1_000_000 + " ms");
+                cancelTaskMenuItem.setEnabled(!graphController.getAlgorithmService().getRunningTasks().isEmpty());
+                if (task.getFailure() != null) task.getFailure().printStackTrace();
+            }
+        });
 
         fileMenu.add(saveMenuItem);
         fileMenu.add(loadMenuItem);
+        fileMenu.add(convertMenuItem);
         fileMenu.add(resetMenuItem);
         algorithmsMenu.add(markEulerianMenuItem);
         algorithmsMenu.add(markHamiltonianMenuItem);
         algorithmsMenu.add(colorGraphMenuItem);
+        algorithmsMenu.add(shortestPathMenuItem);
+        algorithmsMenu.add(spanningTreeMenuItem);
+        algorithmsMenu.add(autoLayoutMenuItem);
+        algorithmsMenu.add(eccentricityMenuItem);
+        algorithmsMenu.add(exportDistancesMenuItem);
+        algorithmsMenu.addSeparator();
+        algorithmsMenu.add(taskStatusMenuItem);
+        algorithmsMenu.add(cancelTaskMenuItem);
 
         menuBar.add(fileMenu);
         menuBar.add(algorithmsMenu);
@@ -70,9 +132,11 @@ public class GraphVisualizer extends JFrame {
         JToggleButton toggleDirectedButton = new JToggleButton("Gerichtet");
         JCheckBox weightedCheckBox = new JCheckBox("Gewichtet");
         JButton undoButton = new JButton("Rückgängig");
+        JButton redoButton = new JButton("Wiederherstellen");
 
         addEdgeButton.addActionListener(e -> graphPanel.createEdge(isDirected, isWeighted));
         undoButton.addActionListener(e -> graphController.undo());
+        redoButton.addActionListener(e -> graphController.redo());
 
         toggleDirectedButton.addItemListener(e -> {
             isDirected = toggleDirectedButton.isSelected();
@@ -88,6 +152,7 @@ public class GraphVisualizer extends JFrame {
         controlPanel.add(toggleDirectedButton);
         controlPanel.add(weightedCheckBox);
         controlPanel.add(undoButton);
+        controlPanel.add(redoButton);
 
         add(controlPanel, BorderLayout.NORTH);
 
@@ -111,12 +176,31 @@ public class GraphVisualizer extends JFrame {
         add(graphPanel, BorderLayout.CENTER);
     }
 
-    private void saveGraph() {
+    private JFileChooser createGraphFileChooser() {
         JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileFilter(new FileNameExtensionFilter("Graph files", "graph"));
+        for (GraphFormat format : GraphFormat.values()) {
+            FileNameExtensionFilter filter = new FileNameExtensionFilter(format.getDescription(), format.getExtension());
+            fileChooser.addChoosableFileFilter(filter);
+            if (format == GraphFormat.TEXT) fileChooser.setFileFilter(filter);
+        }
+        return fileChooser;
+    }
+
+    // Appends the extension of the selected filter when the user typed a bare file name
+    private File withSelectedExtension(JFileChooser fileChooser) {
+        File file = fileChooser.getSelectedFile();
+        if (file.getName().contains(".")) return file;
+        if (fileChooser.getFileFilter() instanceof FileNameExtensionFilter filter) {
+            return new File(file.getParentFile(), file.getName() + "." + filter.getExtensions()[0]);
+        }
+        return file;
+    }
+
+    private void saveGraph() {
+        JFileChooser fileChooser = createGraphFileChooser();
         int returnValue = fileChooser.showSaveDialog(this);
         if (returnValue == JFileChooser.APPROVE_OPTION) {
-            File file = fileChooser.getSelectedFile();
+            File file = withSelectedExtension(fileChooser);
             try {
                 graphController.saveGraph(file);
             } catch (IOException e) {
@@ -126,19 +210,54 @@ public class GraphVisualizer extends JFrame {
     }
 
     private void loadGraph() {
-        JFileChooser fileChooser = new JFileChooser();
-        fileChooser.setFileFilter(new FileNameExtensionFilter("Graph files", "graph"));
+        JFileChooser fileChooser = createGraphFileChooser();
         int returnValue = fileChooser.showOpenDialog(this);
         if (returnValue == JFileChooser.APPROVE_OPTION) {
             File file = fileChooser.getSelectedFile();
-            try {
-                graphController.loadGraph(file);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            graphController.loadGraph(file, failure -> showFailure("Load", failure));
+        }
+    }
+
+    private void exportDistances() {
+        JFileChooser fileChooser = new JFileChooser();
+        FileNameExtensionFilter csv = new FileNameExtensionFilter("Distance matrix (CSV)", "csv");
+        fileChooser.addChoosableFileFilter(csv);
+        fileChooser.addChoosableFileFilter(new FileNameExtensionFilter("Distance matrix (binary)", "gdm"));
+        fileChooser.setFileFilter(csv);
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            File file = withSelectedExtension(fileChooser);
+            graphController.exportDistances(file, diameter -> JOptionPane.showMessageDialog(this, diameter == null
+                    ? "The graph contains a negative cycle."
+                    : "Distances exported to " + file.getName() + ". Diameter: " + diameter),
+                    failure -> showFailure("Export", failure));
         }
     }
 
+    private static String describe(GraphController.HamiltonianFinding finding) {
+        HamiltonianResult result = finding.result();
+        if (result == null) return "The graph has no Hamiltonian cycle or path.";
+        if (!result.cycle()) return "The graph has no Hamiltonian cycle. Marked a Hamiltonian path of weight " + result.weight() + ".";
+        if (finding.lightest()) return "Marked the lightest Hamiltonian cycle, weight " + result.weight() + ".";
+        return "Marked a Hamiltonian cycle of weight " + result.weight() + ". The graph is too large to find the lightest one.";
+    }
+
+    // Tasks wrap I/O errors, whose message is the useful one
+    private void showFailure(String what, Throwable failure) {
+        Throwable cause = failure instanceof UncheckedIOException ? failure.getCause() : failure;
+        JOptionPane.showMessageDialog(this, what + " failed: " + cause.getMessage());
+    }
+
+    private void convertGraph() {
+        JFileChooser sourceChooser = createGraphFileChooser();
+        sourceChooser.setDialogTitle("Convert from");
+        if (sourceChooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        JFileChooser targetChooser = createGraphFileChooser();
+        targetChooser.setDialogTitle("Convert to");
+        if (targetChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        graphController.convertGraph(sourceChooser.getSelectedFile(), withSelectedExtension(targetChooser),
+                failure -> showFailure("Conversion", failure));
+    }
+
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> new GraphVisualizer().setVisible(true));
     }
@@ -0,0 +1,335 @@
+package net.tim.view;
+
+import net.tim.model.Edge;
+import net.tim.model.Node;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Uniform grid over node positions and edge segments for hit-testing. Nodes sit in the cell of their centre;
+ * edges are registered in every cell their segment crosses (Amanatides-Woo grid walk). The position each element
+ * was indexed at is remembered, so an update only needs the element itself after its coordinates changed.
+ * Edges spanning more than {@value #COARSE_FACTOR} cells are filed in a second grid with cells that much larger
+ * instead, so a long edge costs a handful of entries rather than one per small cell it crosses.
+ * The index also keeps the longest name and weight label it has seen since it was last cleared, so the renderer
+ * knows how far a label can stick out of the cells its node or edge is filed in.
+ */
+public final class SpatialIndex {
+    static final int COARSE_FACTOR = 16;
+
+    private final int cellSize;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, Cell> coarseCells = new HashMap<>();
+    private final Map<Node, Point> nodePositions = new IdentityHashMap<>();
+    private final Map<Edge, int[]> edgeSegments = new IdentityHashMap<>();
+    private final Set<Edge> reportedEdges = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Running maxima in chars; they only grow until the next clear, so a removed long label may still count
+    private int maxNameLength, maxWeightLength;
+
+    private static final class Cell {
+        final int x, y;
+        final List<Node> nodes = new ArrayList<>(2);
+        final List<Edge> edges = new ArrayList<>(4);
+
+        Cell(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+
+        boolean isEmpty() {
+            return nodes.isEmpty() && edges.isEmpty();
+        }
+    }
+
+    @FunctionalInterface
+    private interface CellVisitor {
+        void visit(int cellX, int cellY);
+    }
+
+    public SpatialIndex(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void clear() {
+        cells.clear();
+        coarseCells.clear();
+        nodePositions.clear();
+        edgeSegments.clear();
+        maxNameLength = 0;
+        maxWeightLength = 0;
+    }
+
+    public void rebuild(Collection<Node> nodes, Collection<Edge> edges) {
+        clear();
+        nodes.forEach(this::addNode);
+        edges.forEach(this::addEdge);
+    }
+
+    public void addNode(Node node) {
+        if (nodePositions.containsKey(node)) return;
+        int cx = cellOf(node.getX()), cy = cellOf(node.getY());
+        nodePositions.put(node, new Point(node.getX(), node.getY()));
+        cells.computeIfAbsent(key(cx, cy), k -> new Cell(cx, cy)).nodes.add(node);
+        updateLabel(node);
+    }
+
+    // Takes the node's current name into account; call after a rename
+    public void updateLabel(Node node) {
+        maxNameLength = Math.max(maxNameLength, node.nameLength());
+    }
+
+    // Takes the edge's current weight label into account; call after a weight change
+    public void updateLabel(Edge edge) {
+        maxWeightLength = Math.max(maxWeightLength, labelLength(edge.getWeight()));
+    }
+
+    /** Longest node name, in chars, indexed since the last clear; never less than the longest current name. */
+    public int maxNameLength() {
+        return maxNameLength;
+    }
+
+    /** Longest weight label, in chars, indexed since the last clear; never less than the longest current one. */
+    public int maxWeightLength() {
+        return maxWeightLength;
+    }
+
+    // Chars in the decimal form of value, sign included, without building the string
+    static int labelLength(int value) {
+        int length = value < 0 ? 2 : 1;
+        for (long rest = Math.abs((long) value); rest >= 10; rest /= 10) length++;
+        return length;
+    }
+
+    public void removeNode(Node node) {
+        Point position = nodePositions.remove(node);
+        if (position == null) return;
+        long key = key(cellOf(position.x), cellOf(position.y));
+        Cell cell = cells.get(key);
+        removeIdentity(cell.nodes, node);
+        if (cell.isEmpty()) cells.remove(key);
+    }
+
+    // Re-files the node under its current position; incident edges have to be updated separately
+    public void updateNode(Node node) {
+        Point position = nodePositions.get(node);
+        if (position != null && cellOf(position.x) == cellOf(node.getX()) && cellOf(position.y) == cellOf(node.getY())) {
+            position.setLocation(node.getX(), node.getY());
+            return;
+        }
+        removeNode(node);
+        addNode(node);
+    }
+
+    public void addEdge(Edge edge) {
+        if (edgeSegments.containsKey(edge)) return;
+        int[] segment = {edge.getFrom().getX(), edge.getFrom().getY(), edge.getTo().getX(), edge.getTo().getY()};
+        edgeSegments.put(edge, segment);
+        Map<Long, Cell> grid = gridFor(segment);
+        walk(segment, sizeOf(grid), (cx, cy) -> grid.computeIfAbsent(key(cx, cy), k -> new Cell(cx, cy)).edges.add(edge));
+        updateLabel(edge);
+    }
+
+    public void removeEdge(Edge edge) {
+        int[] segment = edgeSegments.remove(edge);
+        if (segment == null) return;
+        Map<Long, Cell> grid = gridFor(segment);
+        walk(segment, sizeOf(grid), (cx, cy) -> {
+            long key = key(cx, cy);
+            Cell cell = grid.get(key);
+            if (cell == null) return;
+            removeIdentity(cell.edges, edge);
+            if (cell.isEmpty()) grid.remove(key);
+        });
+    }
+
+    private Map<Long, Cell> gridFor(int[] segment) {
+        long span = Math.max(Math.abs((long) segment[2] - segment[0]), Math.abs((long) segment[3] - segment[1]));
+        return span > (long) cellSize * COARSE_FACTOR ? coarseCells : cells;
+    }
+
+    private int sizeOf(Map<Long, Cell> grid) {
+        return grid == coarseCells ? cellSize * COARSE_FACTOR : cellSize;
+    }
+
+    public void updateEdge(Edge edge) {
+        int[] segment = edgeSegments.get(edge);
+        if (segment != null && segment[0] == edge.getFrom().getX() && segment[1] == edge.getFrom().getY()
+                && segment[2] == edge.getTo().getX() && segment[3] == edge.getTo().getY()) {
+            return;
+        }
+        removeEdge(edge);
+        addEdge(edge);
+    }
+
+    // Where the node was last indexed, which is its position before a move that has not been reported yet
+    public Point indexedPosition(Node node) {
+        Point position = nodePositions.get(node);
+        return position == null ? null : new Point(position);
+    }
+
+    // Bounding box of the edge as last indexed, or null if it is not indexed
+    public Rectangle indexedBounds(Edge edge) {
+        int[] s = edgeSegments.get(edge);
+        if (s == null) return null;
+        return new Rectangle(Math.min(s[0], s[2]), Math.min(s[1], s[3]), Math.abs(s[2] - s[0]), Math.abs(s[3] - s[1]));
+    }
+
+    /** The node closest to (x, y) whose centre lies within {@code radius} on both axes, or null. */
+    public Node nodeAt(int x, int y, int radius) {
+        Node nearest = null;
+        long nearestDistance = Long.MAX_VALUE;
+        for (int cx = cellOf(x - radius); cx <= cellOf(x + radius); cx++) {
+            for (int cy = cellOf(y - radius); cy <= cellOf(y + radius); cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+                for (Node node : cell.nodes) {
+                    long dx = node.getX() - x, dy = node.getY() - y;
+                    if (Math.abs(dx) >= radius || Math.abs(dy) >= radius) continue;
+                    long distance = dx * dx + dy * dy;
+                    if (distance < nearestDistance) {
+                        nearestDistance = distance;
+                        nearest = node;
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /** The edge whose segment passes closest to (x, y), if closer than {@code tolerance}; otherwise null. */
+    public Edge edgeAt(int x, int y, int tolerance) {
+        Edge nearest = null;
+        double nearestDistance = tolerance;
+        for (Map<Long, Cell> grid : List.of(cells, coarseCells)) {
+            int size = sizeOf(grid);
+            for (int cx = cellOf(x - tolerance, size); cx <= cellOf(x + tolerance, size); cx++) {
+                for (int cy = cellOf(y - tolerance, size); cy <= cellOf(y + tolerance, size); cy++) {
+                    Cell cell = grid.get(key(cx, cy));
+                    if (cell == null) continue;
+                    for (Edge edge : cell.edges) {
+                        Node from = edge.getFrom(), to = edge.getTo();
+                        double distance = pointToLineDistance(x, y, from.getX(), from.getY(), to.getX(), to.getY());
+                        if (distance < nearestDistance) {
+                            nearestDistance = distance;
+                            nearest = edge;
+                        }
+                    }
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /** Visits every node filed in a cell that overlaps {@code area}. */
+    public void forEachNode(Rectangle area, Consumer<Node> action) {
+        int minX = cellOf(area.x), maxX = cellOf(area.x + area.width), minY = cellOf(area.y), maxY = cellOf(area.y + area.height);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+            // Area covers more cells than are occupied; walking the occupied ones is cheaper
+            for (Cell cell : cells.values()) {
+                if (cell.x >= minX && cell.x <= maxX && cell.y >= minY && cell.y <= maxY) cell.nodes.forEach(action);
+            }
+            return;
+        }
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                Cell cell = cells.get(key(cx, cy));
+                if (cell != null) cell.nodes.forEach(action);
+            }
+        }
+    }
+
+    /** Visits each edge filed in a cell that overlaps {@code area} once, even if it crosses several of them. */
+    public void forEachEdge(Rectangle area, Consumer<Edge> action) {
+        int minX = cellOf(area.x), maxX = cellOf(area.x + area.width), minY = cellOf(area.y), maxY = cellOf(area.y + area.height);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > cells.size()) {
+            for (Map.Entry<Edge, int[]> entry : edgeSegments.entrySet()) {
+                int[] s = entry.getValue();
+                if (Math.max(s[0], s[2]) >= area.x && Math.min(s[0], s[2]) <= area.x + area.width
+                        && Math.max(s[1], s[3]) >= area.y && Math.min(s[1], s[3]) <= area.y + area.height) {
+                    action.accept(entry.getKey());
+                }
+            }
+            return;
+        }
+        reportedEdges.clear();
+        for (Map<Long, Cell> grid : List.of(cells, coarseCells)) {
+            int size = sizeOf(grid);
+            for (int cx = cellOf(area.x, size); cx <= cellOf(area.x + area.width, size); cx++) {
+                for (int cy = cellOf(area.y, size); cy <= cellOf(area.y + area.height, size); cy++) {
+                    Cell cell = grid.get(key(cx, cy));
+                    if (cell == null) continue;
+                    for (Edge edge : cell.edges) {
+                        if (reportedEdges.add(edge)) action.accept(edge);
+                    }
+                }
+            }
+        }
+        reportedEdges.clear();
+    }
+
+    static double pointToLineDistance(int x, int y, int x1, int y1, int x2, int y2) {
+        double A = x - x1, B = y - y1, C = x2 - x1, D = y2 - y1;
+        double dot = A * C + B * D, len_sq = C * C + D * D, param = len_sq != 0 ? dot / len_sq : -1;
+        double xx = param < 0 ? x1 : param > 1 ? x2 : x1 + param * C;
+        double yy = param < 0 ? y1 : param > 1 ? y2 : y1 + param * D;
+        return Math.sqrt((x - xx) * (x - xx) + (y - yy) * (y - yy));
+    }
+
+    // Visits every cell the segment passes through, stepping across whichever cell border comes first
+    private void walk(int[] segment, int cellSize, CellVisitor visitor) {
+        double x1 = segment[0], y1 = segment[1], dx = segment[2] - x1, dy = segment[3] - y1;
+        int cx = cellOf(segment[0], cellSize), cy = cellOf(segment[1], cellSize);
+        int endX = cellOf(segment[2], cellSize), endY = cellOf(segment[3], cellSize);
+        int stepX = Integer.signum(endX - cx), stepY = Integer.signum(endY - cy);
+        double tMaxX = stepX == 0 ? Double.POSITIVE_INFINITY : ((stepX > 0 ? cx + 1 : cx) * (double) cellSize - x1) / dx;
+        double tMaxY = stepY == 0 ? Double.POSITIVE_INFINITY : ((stepY > 0 ? cy + 1 : cy) * (double) cellSize - y1) / dy;
+        double tDeltaX = stepX == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+        double tDeltaY = stepY == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+
+        visitor.visit(cx, cy);
+        for (int steps = Math.abs(endX - cx) + Math.abs(endY - cy); steps > 0; steps--) {
+            if (cx != endX && (tMaxX < tMaxY || cy == endY)) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            visitor.visit(cx, cy);
+        }
+    }
+
+    private int cellOf(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static int cellOf(int coordinate, int size) {
+        return Math.floorDiv(coordinate, size);
+    }
+
+    // Packed coordinates times an odd constant: still unique per cell, but spread out for Long.hashCode,
+    // which would otherwise collide for every cell with the same cellX ^ cellY
+    private static long key(int cellX, int cellY) {
+        return (((long) cellX << 32) | (cellY & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+    }
+
+    private static <T> void removeIdentity(List<T> list, T element) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == element) {
+                int last = list.size() - 1;
+                list.set(i, list.get(last));
+                list.remove(last);
+                return;
+            }
+        }
+    }
+}
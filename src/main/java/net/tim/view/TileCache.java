@@ -0,0 +1,102 @@
+package net.tim.view;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Offscreen tiles of the rendered graph at the current zoom. Tiles are laid out in scaled world space (world
+ * coordinates times the zoom), so panning only moves where they are drawn; a zoom change drops them all.
+ * Edits invalidate just the tiles over the changed world area. Least recently drawn tiles are evicted first.
+ */
+class TileCache {
+    static final int TILE_SIZE = 256;
+    // 128 RGB tiles of 256x256 are 32 MB
+    private static final int MAX_TILES = 128;
+
+    private final GraphRenderer renderer;
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<>(MAX_TILES, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+    private double scale = Double.NaN;
+
+    TileCache(GraphRenderer renderer) {
+        this.renderer = renderer;
+    }
+
+    void clear() {
+        tiles.clear();
+    }
+
+    /** Draws the tiles covering {@code clip} (screen space) for a view made of a uniform scale and integer offset. */
+    void paint(Graphics2D g, Rectangle clip, AffineTransform view, Color background, Font font) {
+        double viewScale = view.getScaleX();
+        if (viewScale != scale) {
+            tiles.clear();
+            scale = viewScale;
+        }
+        int offsetX = (int) view.getTranslateX(), offsetY = (int) view.getTranslateY();
+        int minX = Math.floorDiv(clip.x - offsetX, TILE_SIZE), maxX = Math.floorDiv(clip.x + clip.width - offsetX, TILE_SIZE);
+        int minY = Math.floorDiv(clip.y - offsetY, TILE_SIZE), maxY = Math.floorDiv(clip.y + clip.height - offsetY, TILE_SIZE);
+        for (int tx = minX; tx <= maxX; tx++) {
+            for (int ty = minY; ty <= maxY; ty++) {
+                BufferedImage tile = tiles.get(key(tx, ty));
+                if (tile == null) {
+                    tile = render(tx, ty, background, font);
+                    tiles.put(key(tx, ty), tile);
+                }
+                g.drawImage(tile, tx * TILE_SIZE + offsetX, ty * TILE_SIZE + offsetY, null);
+            }
+        }
+    }
+
+    private BufferedImage render(int tx, int ty, Color background, Font font) {
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.setColor(background);
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setFont(font);
+            g.translate(-tx * TILE_SIZE, -ty * TILE_SIZE);
+            g.scale(scale, scale);
+            renderer.paint(g, worldArea(tx, ty));
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    private Rectangle worldArea(int tx, int ty) {
+        int x = (int) Math.floor(tx * TILE_SIZE / scale), y = (int) Math.floor(ty * TILE_SIZE / scale);
+        int size = (int) Math.ceil(TILE_SIZE / scale) + 1;
+        return new Rectangle(x, y, size, size);
+    }
+
+    /** Drops the tiles that overlap {@code world}, so they are re-rendered on the next paint. */
+    void invalidate(Rectangle world) {
+        if (tiles.isEmpty() || Double.isNaN(scale)) return;
+        int minX = (int) Math.floor(world.x * scale / TILE_SIZE), maxX = (int) Math.floor((world.x + world.width) * scale / TILE_SIZE);
+        int minY = (int) Math.floor(world.y * scale / TILE_SIZE), maxY = (int) Math.floor((world.y + world.height) * scale / TILE_SIZE);
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) > tiles.size()) {
+            for (Iterator<Long> keys = tiles.keySet().iterator(); keys.hasNext(); ) {
+                long key = keys.next();
+                int tx = (int) (key >> 32), ty = (int) key;
+                if (tx >= minX && tx <= maxX && ty >= minY && ty <= maxY) keys.remove();
+            }
+            return;
+        }
+        for (int tx = minX; tx <= maxX; tx++) {
+            for (int ty = minY; ty <= maxY; ty++) tiles.remove(key(tx, ty));
+        }
+    }
+
+    private static long key(int tx, int ty) {
+        return ((long) tx << 32) | (ty & 0xFFFFFFFFL);
+    }
+}
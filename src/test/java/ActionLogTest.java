@@ -0,0 +1,111 @@
+import net.tim.controller.Action;
+import net.tim.controller.ActionLog;
+import net.tim.controller.GraphController;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.view.GraphPanel;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ActionLogTest {
+    private GraphController controller;
+    private final List<ActionLog.Entry> entries = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        GraphPanel panel = new GraphPanel();
+        controller = new GraphController(new Graph(), panel);
+        panel.setGraphController(controller);
+        controller.getActionLog().addListener(entries::add);
+    }
+
+    // Entries are delivered on the log thread; the marker's own entry flushes everything queued before it. Entries
+    // already queued when the marker listener is added reach it too, so it waits for the marker specifically.
+    private void awaitLog() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        ActionLog.Listener marker = entry -> {
+            if (entry.message().startsWith("ADD_NODE marker ")) done.countDown();
+        };
+        controller.getActionLog().addListener(marker);
+        controller.addNode(0, 0, "marker");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        controller.getActionLog().removeListener(marker);
+        entries.remove(entries.size() - 1);
+    }
+
+    @Test
+    public void testOffLogsNothing() throws InterruptedException {
+        controller.getActionLog().setLevel(ActionLog.Level.OFF);
+        controller.addNode(0, 0, "A");
+        controller.getActionLog().setLevel(ActionLog.Level.INFO);
+        awaitLog();
+        assertTrue(entries.isEmpty());
+    }
+
+    @Test
+    public void testInfoLogsBatchAsOneEntry() throws InterruptedException {
+        controller.getActionLog().setLevel(ActionLog.Level.INFO);
+        controller.addNode(0, 0, "A");
+        Node a = controller.getNodes().get(0);
+        controller.beginBatch();
+        controller.setNodeColor(a, Color.RED);
+        controller.moveNode(a, 10, 10, 0, 0);
+        controller.commitBatch();
+        awaitLog();
+
+        assertEquals(2, entries.size());
+        assertEquals(Action.ActionType.ADD_NODE, entries.get(0).action().type());
+        assertEquals(Action.ActionType.BATCH, entries.get(1).action().type());
+        assertEquals(2, entries.get(1).historySize());
+    }
+
+    @Test
+    public void testDebugLogsBatchedActions() throws InterruptedException {
+        controller.getActionLog().setLevel(ActionLog.Level.DEBUG);
+        controller.addNode(0, 0, "A");
+        Node a = controller.getNodes().get(0);
+        controller.beginBatch();
+        controller.setNodeColor(a, Color.RED);
+        controller.commitBatch();
+        awaitLog();
+
+        assertEquals(3, entries.size());
+        assertTrue(entries.get(1).batched());
+        assertEquals(Action.ActionType.SET_NODE_COLOR, entries.get(1).action().type());
+        assertEquals(Action.ActionType.BATCH, entries.get(2).action().type());
+    }
+
+    @Test
+    public void testMessageIsFormattedWhenLogged() throws InterruptedException {
+        controller.getActionLog().setLevel(ActionLog.Level.INFO);
+        controller.addNode(0, 0, "A");
+        controller.getNodes().get(0).setName("B");
+        awaitLog();
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.get(0).message().startsWith("ADD_NODE A "));
+    }
+
+    @Test
+    public void testLevelPropertyIsParsedLeniently() {
+        String previous = System.getProperty("graph.actionLog");
+        try {
+            System.setProperty("graph.actionLog", " debug ");
+            assertEquals(ActionLog.Level.DEBUG, new ActionLog().getLevel());
+            System.setProperty("graph.actionLog", "verbose");
+            assertEquals(ActionLog.Level.OFF, new ActionLog().getLevel());
+        } finally {
+            if (previous == null) System.clearProperty("graph.actionLog");
+            else System.setProperty("graph.actionLog", previous);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+import net.tim.controller.AlgorithmListener;
+import net.tim.controller.AlgorithmService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class AlgorithmServiceTest {
+    private AlgorithmService service;
+    private CountDownLatch finished;
+    private AtomicReference<AlgorithmService.RunningTask> finishedTask;
+
+    @Before
+    public void setUp() {
+        service = new AlgorithmService(2);
+        finished = new CountDownLatch(1);
+        finishedTask = new AtomicReference<>();
+        service.addListener(new AlgorithmListener() {
+            @Override
+            public void taskFinished(AlgorithmService.RunningTask task) {
+                finishedTask.set(task);
+                finished.countDown();
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    public void completedTask_AppliesResultOnEventDispatchThread() throws InterruptedException {
+        AtomicBoolean appliedOnEdt = new AtomicBoolean();
+        AtomicReference<Integer> applied = new AtomicReference<>();
+        service.submit("sum", monitor -> 20 + 22, result -> {
+            appliedOnEdt.set(SwingUtilities.isEventDispatchThread());
+            applied.set(result);
+        });
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(AlgorithmService.Outcome.COMPLETED, finishedTask.get().getOutcome());
+        assertEquals(Integer.valueOf(42), applied.get());
+        assertTrue(appliedOnEdt.get());
+        assertTrue(service.getRunningTasks().isEmpty());
+    }
+
+    @Test
+    public void cancelledTask_StopsAndSkipsApply() throws InterruptedException {
+        CountDownLatch running = new CountDownLatch(1);
+        AtomicBoolean applied = new AtomicBoolean();
+        AlgorithmService.RunningTask task = service.submit("spin", monitor -> {
+            running.countDown();
+            while (true) monitor.checkCancelled();
+        }, result -> applied.set(true));
+
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        task.cancel();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(AlgorithmService.Outcome.CANCELLED, finishedTask.get().getOutcome());
+        assertFalse(applied.get());
+    }
+
+    @Test
+    public void errorInCompute_FinishesTaskAsFailed() throws InterruptedException {
+        service.submit("broken", monitor -> {
+            throw new AssertionError("boom");
+        }, result -> {
+        });
+
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(AlgorithmService.Outcome.FAILED, finishedTask.get().getOutcome());
+        assertTrue(finishedTask.get().getFailure() instanceof AssertionError);
+        assertTrue(service.getRunningTasks().isEmpty());
+    }
+
+    @Test
+    public void failure_IsHandedToTheTasksFailureCallback() throws InterruptedException {
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch failed = new CountDownLatch(1);
+        service.submit("broken", monitor -> {
+            throw new IllegalStateException("boom");
+        }, result -> {
+        }, e -> {
+            failure.set(e);
+            failed.countDown();
+        });
+
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof IllegalStateException);
+    }
+}
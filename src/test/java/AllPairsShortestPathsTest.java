@@ -0,0 +1,124 @@
+import net.tim.algorithm.AllPairsShortestPaths;
+import net.tim.algorithm.DistanceMatrix;
+import net.tim.algorithm.ShortestPathResult;
+import net.tim.algorithm.ShortestPaths;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class AllPairsShortestPathsTest {
+
+    private static CompactGraph randomGraph(int nodes, int edges, int minWeight, long seed) {
+        Random random = new Random(seed);
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addRandomNodes(graph, nodes, random, 500);
+        for (int i = 0; i < edges; i++) {
+            int weight = minWeight + random.nextInt(30);
+            graph.addEdge(n[random.nextInt(nodes)], n[random.nextInt(nodes)], minWeight < 0 || random.nextBoolean(), weight);
+        }
+        return CompactGraph.of(graph);
+    }
+
+    @Test
+    public void dijkstraAndFloydWarshall_AgreeWithSinglePairSearch() {
+        // 150 nodes span several 64-node blocks, including a partial one
+        CompactGraph compact = randomGraph(150, 500, 0, 11);
+        DistanceMatrix parallel = AllPairsShortestPaths.dijkstraFromEverySource(compact, TaskMonitor.NONE);
+        DistanceMatrix blocked = AllPairsShortestPaths.floydWarshall(compact, TaskMonitor.NONE);
+        for (int from = 0; from < 150; from += 7) {
+            for (int to = 0; to < 150; to++) {
+                ShortestPathResult path = ShortestPaths.dijkstra(compact, from, to, TaskMonitor.NONE);
+                int expected = path == null ? DistanceMatrix.UNREACHABLE : (int) path.distance();
+                assertEquals(expected, parallel.get(from, to));
+                assertEquals(expected, blocked.get(from, to));
+            }
+        }
+    }
+
+    @Test
+    public void floydWarshall_HandlesNegativeWeightsAndCycles() {
+        // Negative edges only point from lower to higher ids, so they cannot close a cycle
+        Random random = new Random(5);
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 90);
+        for (int i = 0; i < 300; i++) {
+            int a = random.nextInt(n.length), b = random.nextInt(n.length);
+            if (a == b) continue;
+            int weight = random.nextInt(30) - 5;
+            if (weight < 0 && a > b) weight = -weight;
+            graph.addWeightedDirectedEdge(n[a], n[b], weight);
+        }
+        CompactGraph compact = CompactGraph.of(graph);
+        DistanceMatrix matrix = AllPairsShortestPaths.compute(compact, TaskMonitor.NONE);
+        for (int from = 0; from < n.length; from += 9) {
+            for (int to = 0; to < n.length; to++) {
+                ShortestPathResult expected = ShortestPaths.bellmanFord(compact, from, to, TaskMonitor.NONE);
+                assertEquals(expected == null ? DistanceMatrix.UNREACHABLE : (int) expected.distance(), matrix.get(from, to));
+            }
+        }
+
+        Graph cycle = new Graph();
+        Node a = new Node(0, 0, "A"), b = new Node(10, 0, "B");
+        cycle.addNode(a);
+        cycle.addNode(b);
+        cycle.addWeightedDirectedEdge(a, b, 2);
+        cycle.addWeightedDirectedEdge(b, a, -3);
+        assertNull(AllPairsShortestPaths.compute(CompactGraph.of(cycle), TaskMonitor.NONE));
+    }
+
+    @Test
+    public void eccentricityAndDiameter_OnAPath() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 4);
+        graph.addWeightedEdge(n[0], n[1], 1);
+        graph.addWeightedEdge(n[1], n[2], 2);
+        graph.addWeightedEdge(n[2], n[3], 3);
+        graph.addNode(new Node(99, 99, "Isolated"));
+        DistanceMatrix matrix = AllPairsShortestPaths.compute(CompactGraph.of(graph), TaskMonitor.NONE);
+
+        assertEquals(6, matrix.eccentricity(0));
+        assertEquals(3, matrix.eccentricity(2));
+        assertEquals(0, matrix.eccentricity(4));
+        assertEquals(6, matrix.diameter());
+        assertFalse(matrix.isReachable(0, 4));
+        assertEquals(3.0 / (3 + 2 + 3), matrix.closeness(1), 1e-9);
+    }
+
+    @Test
+    public void export_WritesCsvAndBinary() throws IOException {
+        Graph graph = new Graph();
+        Node a = new Node(0, 0, "A"), b = new Node(10, 0, "B");
+        graph.addNode(a);
+        graph.addNode(b);
+        graph.addWeightedDirectedEdge(a, b, 7);
+        DistanceMatrix matrix = AllPairsShortestPaths.compute(CompactGraph.of(graph), TaskMonitor.NONE);
+
+        StringWriter csv = new StringWriter();
+        matrix.writeCsv(csv);
+        assertEquals("0,7\n,0\n", csv.toString());
+
+        File file = File.createTempFile("distances", ".gdm");
+        file.deleteOnExit();
+        matrix.writeBinary(file.toPath());
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(4 + 4 + 4 + 4 * 4, buffer.remaining());
+        buffer.position(8);
+        assertEquals(2, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+        assertEquals(7, buffer.getInt());
+        assertEquals(DistanceMatrix.UNREACHABLE, buffer.getInt());
+        assertEquals(0, buffer.getInt());
+    }
+}
@@ -0,0 +1,69 @@
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CompactGraphTest {
+    private Graph graph;
+    private Node a, b, c;
+
+    @Before
+    public void setUp() {
+        graph = new Graph();
+        a = new Node(0, 0, "A");
+        b = new Node(10, 0, "B");
+        c = new Node(20, 0, "C");
+        graph.addNode(a);
+        graph.addNode(b);
+        graph.addNode(c);
+        graph.addWeightedEdge(a, b, 3);
+        graph.addWeightedDirectedEdge(b, c, 7);
+    }
+
+    @Test
+    public void snapshot_HasArcsForBothEndpoints() {
+        CompactGraph compact = CompactGraph.of(graph);
+        assertEquals(3, compact.nodeCount());
+        assertEquals(2, compact.edgeCount());
+        assertEquals(1, compact.degree(0));
+        assertEquals(2, compact.degree(1));
+        assertEquals(1, compact.degree(2));
+        assertSame(a, compact.node(0));
+        assertTrue(compact.hasDirectedEdges());
+    }
+
+    @Test
+    public void snapshot_FlagsArcsAgainstDirectedEdges() {
+        CompactGraph compact = CompactGraph.of(graph);
+        int forward = compact.findArc(1, 2);
+        int backward = compact.findArc(2, 1);
+        assertFalse(compact.isReverse(forward));
+        assertTrue(compact.isReverse(backward));
+        assertEquals(7, compact.weight(forward));
+        assertEquals(compact.arcEdge(forward), compact.arcEdge(backward));
+        assertTrue(compact.isDirected(compact.arcEdge(forward)));
+        assertFalse(compact.isDirected(compact.arcEdge(compact.findArc(0, 1))));
+        assertEquals(-1, compact.findArc(0, 2));
+    }
+
+    @Test
+    public void edges_ReportEndpointsAndWeightsAroundIsolatedNodes() {
+        Node isolated = new Node(30, 0, "Isolated"), last = new Node(40, 0, "Last"), tail = new Node(50, 0, "Tail");
+        graph.addNode(isolated);
+        graph.addNode(last);
+        graph.addNode(tail);
+        graph.addWeightedDirectedEdge(last, a, 5);
+        graph.addWeightedEdge(c, c, 2);
+        CompactGraph compact = CompactGraph.of(graph);
+
+        int[][] expected = {{0, 1, 3}, {1, 2, 7}, {4, 0, 5}, {2, 2, 2}};
+        for (int e = 0; e < expected.length; e++) {
+            assertEquals(expected[e][0], compact.edgeSource(e));
+            assertEquals(expected[e][1], compact.edgeTarget(e));
+            assertEquals(expected[e][2], compact.edgeWeight(e));
+        }
+    }
+}
@@ -0,0 +1,105 @@
+import net.tim.algorithm.EulerianResult;
+import net.tim.algorithm.EulerianTrail;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class EulerianTrailTest {
+
+    private static void assertValidTrail(CompactGraph compact, EulerianResult trail) {
+        assertEquals(compact.edgeCount(), trail.edges().length);
+        assertEquals(compact.edgeCount() + 1, trail.nodes().length);
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < trail.edges().length; i++) {
+            int edge = trail.edges()[i];
+            assertTrue(used.add(edge));
+            int from = trail.nodes()[i], to = trail.nodes()[i + 1];
+            boolean forward = compact.edgeSource(edge) == from && compact.edgeTarget(edge) == to;
+            boolean backward = compact.edgeSource(edge) == to && compact.edgeTarget(edge) == from;
+            assertTrue(compact.isDirected(edge) ? forward : forward || backward);
+        }
+    }
+
+    @Test
+    public void find_ReturnsCircuitWhenAllDegreesAreEven() {
+        // Two triangles sharing node 0
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 5);
+        graph.addEdge(n[0], n[1]);
+        graph.addEdge(n[1], n[2]);
+        graph.addEdge(n[2], n[0]);
+        graph.addEdge(n[0], n[3]);
+        graph.addEdge(n[3], n[4]);
+        graph.addEdge(n[4], n[0]);
+        CompactGraph compact = CompactGraph.of(graph);
+        EulerianResult trail = EulerianTrail.find(compact, TaskMonitor.NONE);
+        assertNotNull(trail);
+        assertTrue(trail.circuit());
+        assertValidTrail(compact, trail);
+    }
+
+    @Test
+    public void find_ReturnsPathBetweenOddNodes() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 4);
+        graph.addEdge(n[0], n[1]);
+        graph.addEdge(n[1], n[2]);
+        graph.addEdge(n[2], n[0]);
+        graph.addEdge(n[2], n[3]);
+        CompactGraph compact = CompactGraph.of(graph);
+        EulerianResult trail = EulerianTrail.find(compact, TaskMonitor.NONE);
+        assertNotNull(trail);
+        assertFalse(trail.circuit());
+        assertValidTrail(compact, trail);
+    }
+
+    @Test
+    public void find_FollowsDirectedEdges() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 3);
+        graph.addWeightedDirectedEdge(n[0], n[1], 1);
+        graph.addWeightedDirectedEdge(n[1], n[2], 1);
+        graph.addWeightedDirectedEdge(n[2], n[0], 1);
+        graph.addWeightedDirectedEdge(n[0], n[2], 1);
+        CompactGraph compact = CompactGraph.of(graph);
+        EulerianResult trail = EulerianTrail.find(compact, TaskMonitor.NONE);
+        assertNotNull(trail);
+        assertFalse(trail.circuit());
+        assertEquals(0, trail.nodes()[0]);
+        assertValidTrail(compact, trail);
+
+        graph.addWeightedDirectedEdge(n[0], n[1], 1);
+        assertNull(EulerianTrail.find(CompactGraph.of(graph), TaskMonitor.NONE));
+    }
+
+    @Test
+    public void find_RejectsDisconnectedEdges() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 6);
+        graph.addEdge(n[0], n[1]);
+        graph.addEdge(n[1], n[2]);
+        graph.addEdge(n[2], n[0]);
+        graph.addEdge(n[3], n[4]);
+        graph.addEdge(n[4], n[5]);
+        graph.addEdge(n[5], n[3]);
+        assertNull(EulerianTrail.find(CompactGraph.of(graph), TaskMonitor.NONE));
+    }
+
+    @Test
+    public void find_HandlesLongChainWithoutRecursion() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 200_000);
+        for (int i = 0; i + 1 < n.length; i++) graph.addEdge(n[i], n[i + 1]);
+        CompactGraph compact = CompactGraph.of(graph);
+        EulerianResult trail = EulerianTrail.find(compact, TaskMonitor.NONE);
+        assertNotNull(trail);
+        assertEquals(n.length - 1, trail.edges().length);
+    }
+}
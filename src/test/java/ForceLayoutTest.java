@@ -0,0 +1,75 @@
+import net.tim.algorithm.ForceLayout;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class ForceLayoutTest {
+
+    private static ForceLayout run(CompactGraph compact) {
+        ForceLayout layout = new ForceLayout(compact);
+        while (!layout.isFinished()) layout.step();
+        return layout;
+    }
+
+    private static double distance(ForceLayout layout, int a, int b) {
+        return Math.hypot(layout.x(a) - layout.x(b), layout.y(a) - layout.y(b));
+    }
+
+    @Test
+    public void layout_SpreadsStackedNodesAndKeepsEdgesShort() {
+        // An imported graph: every node at the origin
+        Graph graph = new Graph();
+        Node[] n = new Node[60];
+        for (int i = 0; i < n.length; i++) {
+            n[i] = new Node(0, 0, "N" + i);
+            graph.addNode(n[i]);
+        }
+        for (int i = 1; i < n.length; i++) graph.addEdge(n[i], n[(i - 1) / 2], i % 3 == 0, 1);
+        CompactGraph compact = CompactGraph.of(graph);
+        ForceLayout layout = run(compact);
+
+        Set<Long> positions = new HashSet<>();
+        for (int v = 0; v < n.length; v++) positions.add((long) layout.x(v) << 32 | (layout.y(v) & 0xFFFFFFFFL));
+        assertEquals(n.length, positions.size());
+        double pairs = 0;
+        for (int a = 0; a < n.length; a++)
+            for (int b = a + 1; b < n.length; b++) pairs += distance(layout, a, b);
+        double meanPairDistance = pairs / (n.length * (n.length - 1) / 2.0);
+        for (int e = 0; e < compact.edgeCount(); e++) {
+            double length = distance(layout, compact.edgeSource(e), compact.edgeTarget(e));
+            assertTrue(length > ForceLayout.EDGE_LENGTH / 2 && length < meanPairDistance);
+        }
+    }
+
+    @Test
+    public void layout_PullsNeighboursCloserThanStrangers() {
+        // Two dense clusters joined by a single edge, scattered at random
+        Random random = new Random(2);
+        Graph graph = new Graph();
+        Node[] n = new Node[400];
+        for (int i = 0; i < n.length; i++) {
+            n[i] = new Node(random.nextInt(5000), random.nextInt(5000), null);
+            graph.addNode(n[i]);
+        }
+        for (int i = 0; i < 1600; i++) {
+            int offset = i % 2 == 0 ? 0 : 200;
+            graph.addEdge(n[offset + random.nextInt(200)], n[offset + random.nextInt(200)], false, 1);
+        }
+        graph.addEdge(n[0], n[200], false, 1);
+        ForceLayout layout = run(CompactGraph.of(graph));
+
+        double inside = 0, across = 0;
+        for (int i = 0; i < 200; i++) {
+            inside += distance(layout, i, (i + 1) % 200);
+            across += distance(layout, i, 200 + i);
+        }
+        assertTrue(inside * 1.5 < across);
+    }
+}
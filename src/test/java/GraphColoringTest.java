@@ -0,0 +1,67 @@
+import net.tim.algorithm.ColoringResult;
+import net.tim.algorithm.GraphColoring;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GraphColoringTest {
+
+    private static void assertProper(CompactGraph compact, ColoringResult result) {
+        int used = 0;
+        for (int v = 0; v < compact.nodeCount(); v++) {
+            int color = result.colors()[v];
+            assertTrue(color >= 0 && color < result.colorCount());
+            used = Math.max(used, color + 1);
+            for (int arc = compact.firstArc(v); arc < compact.endArc(v); arc++) {
+                int w = compact.target(arc);
+                if (w != v) assertNotEquals(color, result.colors()[w]);
+            }
+        }
+        assertEquals(used, result.colorCount());
+    }
+
+    @Test
+    public void dsatur_ColorsCyclesAndCompleteGraphsOptimally() {
+        for (int length : new int[]{6, 7}) {
+            Graph cycle = new Graph();
+            Node[] n = TestGraphs.addNodes(cycle, length);
+            for (int i = 0; i < length; i++) cycle.addEdge(n[i], n[(i + 1) % length], false, 1);
+            CompactGraph compact = CompactGraph.of(cycle);
+            ColoringResult result = GraphColoring.dsatur(compact, TaskMonitor.NONE);
+            assertProper(compact, result);
+            assertEquals(length % 2 == 0 ? 2 : 3, result.colorCount());
+        }
+
+        // More colours than the old fixed palette had
+        Graph complete = new Graph();
+        Node[] n = TestGraphs.addNodes(complete, 12);
+        for (int i = 0; i < n.length; i++)
+            for (int j = i + 1; j < n.length; j++) complete.addEdge(n[i], n[j], j % 2 == 0, 1);
+        complete.addEdge(n[0], n[0], false, 1);
+        CompactGraph compact = CompactGraph.of(complete);
+        ColoringResult result = GraphColoring.dsatur(compact, TaskMonitor.NONE);
+        assertProper(compact, result);
+        assertEquals(12, result.colorCount());
+    }
+
+    @Test
+    public void bothEngines_ProduceProperColoringsOfRandomGraphs() {
+        Random random = new Random(9);
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 3000);
+        for (int i = 0; i < 15000; i++) graph.addEdge(n[random.nextInt(n.length)], n[random.nextInt(n.length)], random.nextBoolean(), 1);
+        CompactGraph compact = CompactGraph.of(graph);
+
+        ColoringResult dsatur = GraphColoring.dsatur(compact, TaskMonitor.NONE);
+        ColoringResult parallel = GraphColoring.jonesPlassmann(compact, 4, TaskMonitor.NONE);
+        assertProper(compact, dsatur);
+        assertProper(compact, parallel);
+        assertTrue(dsatur.colorCount() <= parallel.colorCount() + 1);
+    }
+}
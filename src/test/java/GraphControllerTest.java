@@ -0,0 +1,248 @@
+import net.tim.controller.AlgorithmListener;
+import net.tim.controller.AlgorithmService;
+import net.tim.controller.GraphController;
+import net.tim.model.Edge;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.view.GraphPanel;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class GraphControllerTest {
+    private GraphController controller;
+
+    @Before
+    public void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        GraphPanel panel = new GraphPanel();
+        controller = new GraphController(new Graph(), panel);
+        panel.setGraphController(controller);
+    }
+
+    @Test
+    public void testBatchIsUndoneAsOneStep() {
+        controller.addNode(0, 0, "A");
+        controller.addNode(100, 0, "B");
+        Node a = controller.getNodes().get(0), b = controller.getNodes().get(1);
+        controller.addEdge(a, b, false, 1);
+        Edge edge = controller.getEdges().get(0);
+
+        controller.beginBatch();
+        controller.setNodeColor(a, Color.RED);
+        controller.setNodeColor(b, Color.RED);
+        controller.setEdgeColor(edge, Color.RED);
+        controller.moveNode(a, 50, 50, 0, 0);
+        controller.commitBatch();
+
+        controller.undo();
+        assertEquals(Color.BLACK, a.getColor());
+        assertEquals(Color.BLACK, b.getColor());
+        assertEquals(Color.BLACK, edge.getColor());
+        assertEquals(0, a.getX());
+        assertEquals(1, controller.getEdges().size());
+    }
+
+    @Test
+    public void testNestedBatchesCommitOnce() {
+        controller.addNode(0, 0, "A");
+        Node a = controller.getNodes().get(0);
+        controller.beginBatch();
+        controller.setNodeColor(a, Color.RED);
+        controller.beginBatch();
+        controller.setNodeColor(a, Color.BLUE);
+        controller.commitBatch();
+        controller.commitBatch();
+
+        controller.undo();
+        assertEquals(Color.BLACK, a.getColor());
+        assertEquals(1, controller.getNodes().size());
+    }
+
+    @Test
+    public void testResetColorsIsUndoable() {
+        controller.addNode(0, 0, "A");
+        Node a = controller.getNodes().get(0);
+        controller.setNodeColor(a, Color.GREEN);
+        controller.resetColors();
+        assertEquals(Color.BLACK, a.getColor());
+        controller.undo();
+        assertEquals(Color.GREEN, a.getColor());
+    }
+
+    @Test
+    public void testRedoReappliesUndoneChanges() {
+        controller.addNode(0, 0, "A");
+        controller.addNode(100, 0, "B");
+        Node a = controller.getNodes().get(0), b = controller.getNodes().get(1);
+        controller.addEdge(a, b, true, 3);
+        controller.removeNode(b);
+        assertTrue(controller.getEdges().isEmpty());
+
+        controller.undo();
+        assertEquals(1, controller.getEdges().size());
+        controller.redo();
+        assertEquals(1, controller.getNodes().size());
+        assertTrue(controller.getEdges().isEmpty());
+        controller.undo();
+        controller.undo();
+        controller.redo();
+        assertEquals(1, controller.getEdges().size());
+        assertEquals(3, controller.getEdges().get(0).getWeight());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCommitWithoutBegin() {
+        controller.commitBatch();
+    }
+
+    @Test
+    public void testResultsSkipElementsRemovedWhileTaskRan() throws Exception {
+        controller.addNode(0, 0, "A");
+        controller.addNode(100, 0, "B");
+        Node a = controller.getNodes().get(0), b = controller.getNodes().get(1);
+        controller.addEdge(a, b, false, 1);
+        CountDownLatch done = new CountDownLatch(1);
+        // Both run before the EDT can apply the result, so the removal always comes first
+        SwingUtilities.invokeAndWait(() -> {
+            controller.colorGraph(result -> done.countDown());
+            controller.removeNode(b);
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNotEquals(Color.BLACK, a.getColor());
+        assertEquals(Color.BLACK, b.getColor());
+    }
+
+    private GraphController.HamiltonianFinding markHamiltonianOfComplete(int n) throws Exception {
+        for (int i = 0; i < n; i++) controller.addNode(i * 10, 0, "N" + i);
+        List<Node> nodes = controller.getNodes();
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) controller.addEdge(nodes.get(i), nodes.get(j), false, i + j);
+        }
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<GraphController.HamiltonianFinding> finding = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> controller.markHamiltonian(result -> {
+            finding.set(result);
+            done.countDown();
+        }));
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        return finding.get();
+    }
+
+    @Test
+    public void testHamiltonianCycleIsLightestOnlyWithinTheWeightedLimit() throws Exception {
+        GraphController.HamiltonianFinding small = markHamiltonianOfComplete(5);
+        assertTrue(small.result().cycle());
+        assertTrue(small.lightest());
+
+        controller.resetGraph();
+        GraphController.HamiltonianFinding large = markHamiltonianOfComplete(21);
+        assertTrue(large.result().cycle());
+        assertFalse(large.lightest());
+    }
+
+    // Starts tasks on the EDT and waits for the first one to finish
+    private AlgorithmService.RunningTask firstFinished(Runnable start) throws Exception {
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<AlgorithmService.RunningTask> first = new AtomicReference<>();
+        controller.getAlgorithmService().addListener(new AlgorithmListener() {
+            @Override
+            public void taskFinished(AlgorithmService.RunningTask task) {
+                if (first.compareAndSet(null, task)) finished.countDown();
+            }
+        });
+        SwingUtilities.invokeAndWait(start);
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        return first.get();
+    }
+
+    @Test
+    public void testResetCancelsRunningTasks() throws Exception {
+        controller.addNode(0, 0, "A");
+        Node a = controller.getNodes().get(0);
+        AlgorithmService.RunningTask task = firstFinished(() -> {
+            controller.colorGraph();
+            controller.resetGraph();
+        });
+
+        assertEquals(AlgorithmService.Outcome.CANCELLED, task.getOutcome());
+        assertEquals(Color.BLACK, a.getColor());
+        assertFalse(controller.getHistory().canUndo());
+    }
+
+    @Test
+    public void testLoadReadsOffTheEdtAndSwapsTheGraphIn() throws Exception {
+        controller.addNode(0, 0, "A");
+        controller.addNode(100, 0, "B");
+        controller.addEdge(controller.getNodes().get(0), controller.getNodes().get(1), true, 7);
+        File file = File.createTempFile("graph", ".gbin");
+        file.deleteOnExit();
+        controller.saveGraph(file);
+        controller.addNode(50, 50, "Extra");
+
+        AlgorithmService.RunningTask task = firstFinished(() -> controller.loadGraph(file, Throwable::printStackTrace));
+        assertEquals(AlgorithmService.Outcome.COMPLETED, task.getOutcome());
+        assertEquals(2, controller.getNodes().size());
+        assertEquals("B", controller.getNodes().get(1).getName());
+        assertEquals(7, controller.getEdges().get(0).getWeight());
+        assertFalse(controller.getHistory().canUndo());
+
+        // Nodes added afterwards get ids of their own
+        controller.addNode(0, 100, "C");
+        Set<Integer> ids = new HashSet<>();
+        for (Node node : controller.getNodes()) assertTrue(ids.add(node.getId()));
+    }
+
+    @Test
+    public void testConvertRunsAsATaskAndReportsFailures() throws Exception {
+        controller.addNode(0, 0, "A");
+        controller.addNode(100, 0, "B");
+        controller.addEdge(controller.getNodes().get(0), controller.getNodes().get(1), false, 4);
+        File source = File.createTempFile("graph", ".gbin"), target = File.createTempFile("graph", ".graph");
+        source.deleteOnExit();
+        target.deleteOnExit();
+        controller.saveGraph(source);
+
+        AlgorithmService.RunningTask task = firstFinished(() -> controller.convertGraph(source, target, Throwable::printStackTrace));
+        assertEquals(AlgorithmService.Outcome.COMPLETED, task.getOutcome());
+        Graph converted = new Graph();
+        converted.loadFromFile(target);
+        assertEquals(2, converted.getNodes().size());
+        assertEquals(4, converted.getEdges().get(0).getWeight());
+
+        setUp();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        File missing = new File(System.getProperty("java.io.tmpdir"), "missing-" + System.nanoTime() + ".graph");
+        task = firstFinished(() -> controller.convertGraph(missing, target, failure::set));
+        assertEquals(AlgorithmService.Outcome.FAILED, task.getOutcome());
+        assertSame(task.getFailure(), failure.get());
+    }
+
+    @Test
+    public void testLoadFailureIsReportedAndKeepsTheGraph() throws Exception {
+        controller.addNode(0, 0, "A");
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        File missing = new File(System.getProperty("java.io.tmpdir"), "missing-" + System.nanoTime() + ".graph");
+
+        AlgorithmService.RunningTask task = firstFinished(() -> controller.loadGraph(missing, failure::set));
+        assertEquals(AlgorithmService.Outcome.FAILED, task.getOutcome());
+        // The failure callback runs right after the listeners, in the same EDT event
+        SwingUtilities.invokeAndWait(() -> {
+        });
+        assertTrue(failure.get().getCause() instanceof IOException);
+        assertEquals(1, controller.getNodes().size());
+    }
+}
@@ -0,0 +1,136 @@
+import net.tim.model.Edge;
+import net.tim.model.Graph;
+import net.tim.model.GraphConverter;
+import net.tim.model.GraphFormat;
+import net.tim.model.Node;
+import net.tim.model.ProgressListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+public class GraphFormatTest {
+    private Graph graph;
+    private File binaryFile;
+    private File textFile;
+
+    @Before
+    public void setUp() throws IOException {
+        graph = new Graph();
+        Node first = new Node(10, 20, "Twin");
+        Node second = new Node(30, 40, "Twin");
+        Node third = new Node(-5, 7, "Ünïcode");
+        first.setColor(Color.RED);
+        graph.addNode(first);
+        graph.addNode(second);
+        graph.addNode(third);
+        graph.addWeightedDirectedEdge(second, third, 9);
+        graph.addEdge(first, second);
+        graph.getEdges().get(1).setColor(Color.BLUE);
+
+        binaryFile = File.createTempFile("graph", ".gbin");
+        textFile = File.createTempFile("graph", ".graph");
+    }
+
+    @After
+    public void tearDown() {
+        binaryFile.delete();
+        textFile.delete();
+    }
+
+    @Test
+    public void binaryRoundTrip_PreservesNodesEdgesAndDuplicateNames() throws IOException {
+        graph.saveToFile(binaryFile, GraphFormat.BINARY);
+        assertEquals(GraphFormat.BINARY, GraphFormat.detect(binaryFile));
+
+        Graph loaded = new Graph();
+        loaded.loadFromFile(binaryFile, GraphFormat.BINARY, ProgressListener.NONE);
+        assertEquals(3, loaded.getNodes().size());
+        assertEquals(2, loaded.getEdges().size());
+
+        Node first = loaded.getNodes().get(0);
+        assertEquals("Twin", first.getName());
+        assertEquals(Color.RED, first.getColor());
+        assertEquals("Ünïcode", loaded.getNodes().get(2).getName());
+
+        Edge directed = loaded.getEdges().get(0);
+        assertSame(loaded.getNodes().get(1), directed.getFrom());
+        assertSame(loaded.getNodes().get(2), directed.getTo());
+        assertTrue(directed.isDirected());
+        assertEquals(9, directed.getWeight());
+        Edge undirected = loaded.getEdges().get(1);
+        assertSame(first, undirected.getFrom());
+        assertEquals(Color.BLUE, undirected.getColor());
+    }
+
+    @Test
+    public void binaryLoad_BoundsNameLengthBeforeDecoding() throws IOException {
+        graph.saveToFile(binaryFile, GraphFormat.BINARY);
+        Graph loaded = new Graph();
+        loaded.loadFromFile(binaryFile, GraphFormat.BINARY, ProgressListener.NONE);
+
+        // Seven chars, nine bytes of UTF-8 while still in the pool
+        Node unicode = loaded.getNodes().get(2);
+        assertEquals(9, unicode.nameLength());
+        assertEquals("Ünïcode", unicode.getName());
+        assertEquals(7, unicode.nameLength());
+    }
+
+    @Test
+    public void converter_RoundTripsBetweenFormats() throws IOException {
+        graph.saveToFile(textFile, GraphFormat.TEXT);
+        assertEquals(GraphFormat.TEXT, GraphFormat.detect(textFile));
+        GraphConverter.convert(textFile, binaryFile);
+
+        Graph loaded = new Graph();
+        loaded.loadFromFile(binaryFile, GraphFormat.detect(binaryFile), ProgressListener.NONE);
+        assertEquals(3, loaded.getNodes().size());
+        assertEquals(2, loaded.getEdges().size());
+        assertEquals(-5, loaded.getNodes().get(2).getX());
+    }
+
+    @Test
+    public void binaryLoad_SurvivesSavingOverTheLoadedFile() throws IOException {
+        graph.saveToFile(binaryFile, GraphFormat.BINARY);
+        Graph loaded = new Graph();
+        loaded.loadFromFile(binaryFile, GraphFormat.BINARY, ProgressListener.NONE);
+        Node unread = loaded.getNodes().get(2);
+
+        // Names not yet requested must not depend on the file any more
+        new Graph().saveToFile(binaryFile, GraphFormat.BINARY);
+        assertEquals("Ünïcode", unread.getName());
+    }
+
+    @Test
+    public void binaryLoad_RejectsOutOfRangeOffsets() throws IOException {
+        graph.saveToFile(binaryFile, GraphFormat.BINARY);
+        byte[] valid = Files.readAllBytes(binaryFile.toPath());
+
+        // A negative node table offset in the header
+        byte[] corruptHeader = valid.clone();
+        ByteBuffer.wrap(corruptHeader).order(ByteOrder.LITTLE_ENDIAN).putLong(16, -8);
+        assertLoadFails(corruptHeader);
+
+        // A first node whose name lies outside the string pool
+        byte[] corruptName = valid.clone();
+        ByteBuffer.wrap(corruptName).order(ByteOrder.LITTLE_ENDIAN).putInt(48 + 12, 1 << 20);
+        assertLoadFails(corruptName);
+    }
+
+    private void assertLoadFails(byte[] contents) throws IOException {
+        Files.write(binaryFile.toPath(), contents);
+        try {
+            new Graph().loadFromFile(binaryFile, GraphFormat.BINARY, ProgressListener.NONE);
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+        }
+    }
+}
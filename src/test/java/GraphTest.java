@@ -1,10 +1,17 @@
+import net.tim.model.Edge;
 import net.tim.model.Graph;
+import net.tim.model.GraphListener;
 import net.tim.model.Node;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.awt.Color;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -20,19 +27,19 @@ public class GraphTest {
     public void testAddNode() {
         graph.addNode(100, 200, "Node1");
         assertEquals(1, graph.getNodes().size());
-        assertEquals("Node1", graph.getNodes().get(0).name);
+        assertEquals("Node1", graph.getNodes().get(0).getName());
     }
 
     @Test
     public void testAddEdge() {
         Node node1 = new Node(100, 200, "Node1");
         Node node2 = new Node(300, 400, "Node2");
-        graph.addNode(node1.x, node1.y, node1.name);
-        graph.addNode(node2.x, node2.y, node2.name);
+        graph.addNode(node1.getX(), node1.getY(), node1.getName());
+        graph.addNode(node2.getX(), node2.getY(), node2.getName());
         graph.addEdge(node1, node2);
         assertEquals(1, graph.getEdges().size());
-        assertEquals(node1, graph.getEdges().get(0).from);
-        assertEquals(node2, graph.getEdges().get(0).to);
+        assertEquals(node1, graph.getEdges().get(0).getFrom());
+        assertEquals(node2, graph.getEdges().get(0).getTo());
     }
 
     @Test
@@ -50,8 +57,8 @@ public class GraphTest {
         loadedGraph.loadFromFile(file);
         assertEquals(2, loadedGraph.getNodes().size());
         assertEquals(1, loadedGraph.getEdges().size());
-        assertEquals("Node1", loadedGraph.getNodes().get(0).name);
-        assertEquals("Node2", loadedGraph.getNodes().get(1).name);
+        assertEquals("Node1", loadedGraph.getNodes().get(0).getName());
+        assertEquals("Node2", loadedGraph.getNodes().get(1).getName());
 
         // Clean up
         file.delete();
@@ -66,4 +73,218 @@ public class GraphTest {
         graph.removeNode(node1);
         assertEquals(1, graph.getNodes().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIncidenceIndexFollowsMutations() {
+        Node node1 = new Node(0, 0, "Node1");
+        Node node2 = new Node(10, 0, "Node2");
+        Node node3 = new Node(20, 0, "Node3");
+        graph.addNode(node1);
+        graph.addNode(node2);
+        graph.addNode(node3);
+        graph.addEdge(node1, node2);
+        graph.addWeightedDirectedEdge(node2, node3, 4);
+
+        assertEquals(2, graph.degree(node2));
+        assertEquals(1, graph.getOutgoingEdges(node2).size());
+        assertEquals(1, graph.getIncomingEdges(node2).size());
+        assertTrue(graph.getNeighbors(node2).containsAll(List.of(node1, node3)));
+
+        graph.removeEdge(graph.getOutgoingEdges(node1).get(0));
+        assertEquals(1, graph.degree(node2));
+        assertTrue(graph.getIncidentEdges(node1).isEmpty());
+
+        graph.removeNode(node3);
+        assertEquals(0, graph.degree(node2));
+        assertTrue(graph.getEdges().isEmpty());
+    }
+
+    @Test
+    public void testRemoveNodeReportsSelfLoopOnce() {
+        Node node = new Node(0, 0, "Loop");
+        Node other = new Node(10, 0, "Other");
+        graph.addNode(node);
+        graph.addNode(other);
+        graph.addEdge(node, node);
+        graph.addWeightedDirectedEdge(node, node, 2);
+        graph.addEdge(node, other);
+        List<List<Edge>> reported = new ArrayList<>();
+        graph.addListener(new GraphListener() {
+            @Override
+            public void nodeRemoved(Node removedNode, List<Edge> removedEdges) {
+                reported.add(removedEdges);
+            }
+        });
+
+        List<Edge> removed = graph.removeNode(node);
+        assertEquals(3, removed.size());
+        assertEquals(3, new HashSet<>(removed).size());
+        assertEquals(List.of(removed), reported);
+        assertTrue(graph.getEdges().isEmpty());
+        assertEquals(0, graph.degree(other));
+
+        graph.addNode(node);
+        removed.forEach(graph::addEdge);
+        assertEquals(3, graph.getEdges().size());
+        assertEquals(5, graph.degree(node));
+    }
+
+    @Test
+    public void testNodeRemovalByIdentity() {
+        Node twin1 = new Node(50, 50, "Twin");
+        Node twin2 = new Node(50, 50, "Twin");
+        Node other = new Node(0, 0, "Other");
+        graph.addNode(twin1);
+        graph.addNode(twin2);
+        graph.addNode(other);
+        graph.addEdge(twin1, other);
+        graph.addEdge(twin2, other);
+
+        List<Edge> removed = graph.removeNode(twin1);
+        assertEquals(1, removed.size());
+        assertFalse(graph.contains(twin1));
+        assertTrue(graph.contains(twin2));
+        assertEquals(1, graph.getEdges().size());
+        assertSame(twin2, graph.getEdges().get(0).getFrom());
+        assertEquals(graph.getNodes().indexOf(other), graph.indexOf(other));
+        assertNotEquals(twin1.getId(), twin2.getId());
+
+        graph.addNode(twin1);
+        removed.forEach(graph::addEdge);
+        assertEquals(2, graph.degree(other));
+    }
+
+    @Test
+    public void testLoadParsesTextFormatVariants() throws IOException {
+        File file = File.createTempFile("variants", ".graph");
+        Files.writeString(file.toPath(),
+                "NODE 1 2 A -16776961\r\n" +
+                "NODE -3 4 B -65536\r\n" +
+                "EDGE A B 5 TRUE -16777216\r\n" +
+                "EDGE B A -2 false -16777216");
+        List<Long> progress = new ArrayList<>();
+        long size = file.length();
+        graph.loadFromFile(file, (done, total) -> progress.add(done));
+        file.delete();
+
+        assertEquals(2, graph.getNodes().size());
+        Node b = graph.getNodes().get(1);
+        assertEquals(-3, b.getX());
+        assertEquals(Color.RED, b.getColor());
+        assertEquals(2, graph.getEdges().size());
+        assertTrue(graph.getEdges().get(0).isDirected());
+        assertEquals(-2, graph.getEdges().get(1).getWeight());
+        assertFalse(graph.getEdges().get(1).isDirected());
+        assertSame(graph.getEdges().get(0).getColor(), graph.getEdges().get(1).getColor());
+        assertEquals(size, (long) progress.getLast());
+    }
+
+    @Test(expected = IOException.class)
+    public void testLoadRejectsEdgeToUnknownNode() throws IOException {
+        File file = File.createTempFile("broken", ".graph");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "NODE 1 2 A 0\nEDGE A Missing 1 false 0\n");
+        graph.loadFromFile(file);
+    }
+
+    @Test
+    public void testLoadResolvesDuplicateNamesToTheLastNodeBeforeTheEdge() throws IOException {
+        File file = File.createTempFile("twins", ".graph");
+        file.deleteOnExit();
+        Files.writeString(file.toPath(), "NODE 0 0 Twin 0\nNODE 5 5 Other 0\nEDGE Twin Other 1 true 0\n"
+                + "NODE 9 9 Twin 0\nEDGE Twin Other 2 true 0\nEDGE Other Twin 3 true 0\n");
+        graph.loadFromFile(file);
+
+        Node first = graph.getNodes().get(0), other = graph.getNodes().get(1), second = graph.getNodes().get(2);
+        assertEquals("Twin", second.getName());
+        assertSame(first, graph.getEdges().get(0).getFrom());
+        assertSame(second, graph.getEdges().get(1).getFrom());
+        assertSame(second, graph.getEdges().get(2).getTo());
+        // Incidence lists keep file order
+        assertEquals(List.of(graph.getEdges().get(0), graph.getEdges().get(1)), graph.getIncomingEdges(other));
+        assertEquals(3, graph.degree(other));
+    }
+
+    @Test
+    public void testListenerHearsModelChanges() {
+        List<String> events = new ArrayList<>();
+        graph.addListener(new GraphListener() {
+            @Override
+            public void nodeAdded(Node node) {
+                events.add("nodeAdded " + node.getName());
+            }
+
+            @Override
+            public void nodeRemoved(Node node, List<Edge> removedEdges) {
+                events.add("nodeRemoved " + node.getName() + " " + removedEdges.size());
+            }
+
+            @Override
+            public void nodeMoved(Node node, int oldX, int oldY) {
+                events.add("nodeMoved " + oldX + "," + oldY + " -> " + node.getX() + "," + node.getY());
+            }
+
+            @Override
+            public void edgeAdded(Edge edge) {
+                events.add("edgeAdded");
+            }
+
+            @Override
+            public void edgeRemoved(Edge edge) {
+                events.add("edgeRemoved");
+            }
+
+            @Override
+            public void edgeChanged(Edge edge) {
+                events.add("edgeChanged");
+            }
+
+            @Override
+            public void edgeWeightChanged(Edge edge, int oldWeight) {
+                events.add("edgeWeightChanged " + oldWeight + " -> " + edge.getWeight());
+            }
+        });
+        Node a = new Node(0, 0, "A"), b = new Node(5, 5, "B");
+        graph.addNode(a);
+        graph.addNode(b);
+        graph.addEdge(a, b);
+        Edge edge = graph.getEdges().get(0);
+        edge.setColor(Color.RED);
+        edge.setWeight(4);
+        a.moveTo(1, 2);
+        a.moveTo(1, 2);
+        graph.removeNode(b);
+        b.moveTo(9, 9);
+
+        assertEquals(List.of("nodeAdded A", "nodeAdded B", "edgeAdded", "edgeChanged",
+                "edgeWeightChanged 1 -> 4", "nodeMoved 0,0 -> 1,2", "edgeRemoved", "nodeRemoved B 1"), events);
+    }
+
+    @Test
+    public void testLoadIsReportedAsOneReset() throws IOException {
+        graph.addNode(100, 200, "Node1");
+        File file = File.createTempFile("reset", ".graph");
+        file.deleteOnExit();
+        graph.saveToFile(file);
+        int[] counts = new int[2];
+        graph.addListener(new GraphListener() {
+            @Override
+            public void nodeAdded(Node node) {
+                counts[0]++;
+            }
+
+            @Override
+            public void graphReset() {
+                counts[1]++;
+            }
+        });
+        graph.loadFromFile(file);
+        assertEquals(0, counts[0]);
+        assertEquals(1, counts[1]);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testNodeListIsReadOnly() {
+        graph.getNodes().add(new Node(0, 0, "A"));
+    }
+}
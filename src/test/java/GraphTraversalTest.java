@@ -0,0 +1,56 @@
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.GraphTraversal;
+import net.tim.model.Node;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GraphTraversalTest {
+
+    @Test
+    public void traversal_HandlesLongChainsIteratively() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 100_000);
+        for (int i = 0; i + 1 < n.length; i++) graph.addWeightedDirectedEdge(n[i], n[i + 1], 1);
+        GraphTraversal traversal = new GraphTraversal(CompactGraph.of(graph));
+        assertEquals(n.length, traversal.depthFirst(0, true));
+        assertEquals(n.length - 1, traversal.visitedNode(n.length - 1));
+        assertEquals(1, traversal.depthFirst(n.length - 1, true));
+        assertEquals(n.length, traversal.breadthFirst(n.length - 1, false));
+        assertTrue(traversal.isConnected());
+        assertEquals(n.length, traversal.stronglyConnectedComponents(new int[n.length]));
+    }
+
+    @Test
+    public void isConnected_IgnoresDirectionAndIsolatedNodes() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 5);
+        graph.addWeightedDirectedEdge(n[1], n[0], 1);
+        graph.addEdge(n[2], n[0]);
+        GraphTraversal traversal = new GraphTraversal(CompactGraph.of(graph));
+        assertEquals(3, traversal.depthFirst(0, false));
+        assertEquals(2, traversal.depthFirst(0, true));
+        assertTrue(traversal.isConnected());
+
+        graph.addEdge(n[3], n[4]);
+        assertFalse(new GraphTraversal(CompactGraph.of(graph)).isConnected());
+    }
+
+    @Test
+    public void stronglyConnectedComponents_SplitAtOneWayEdges() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 5);
+        graph.addWeightedDirectedEdge(n[0], n[1], 1);
+        graph.addWeightedDirectedEdge(n[1], n[2], 1);
+        graph.addWeightedDirectedEdge(n[2], n[0], 1);
+        graph.addWeightedDirectedEdge(n[2], n[3], 1);
+        graph.addEdge(n[3], n[4]);
+        int[] labels = new int[5];
+        assertEquals(2, new GraphTraversal(CompactGraph.of(graph)).stronglyConnectedComponents(labels));
+        assertEquals(labels[0], labels[1]);
+        assertEquals(labels[0], labels[2]);
+        assertEquals(labels[3], labels[4]);
+        assertNotEquals(labels[0], labels[3]);
+    }
+}
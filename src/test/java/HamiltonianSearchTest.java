@@ -0,0 +1,87 @@
+import net.tim.algorithm.HamiltonianResult;
+import net.tim.algorithm.HamiltonianSearch;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class HamiltonianSearchTest {
+
+    private static void assertVisitsEveryNodeOnce(CompactGraph compact, HamiltonianResult result) {
+        Set<Integer> seen = new HashSet<>();
+        for (int node : result.nodes()) assertTrue(seen.add(node));
+        assertEquals(compact.nodeCount(), seen.size());
+        int steps = result.cycle() ? result.nodes().length : result.nodes().length - 1;
+        assertEquals(steps, result.edges().length);
+        for (int i = 0; i < steps; i++) {
+            int from = result.nodes()[i], to = result.nodes()[(i + 1) % result.nodes().length];
+            int edge = result.edges()[i];
+            if (compact.isDirected(edge)) {
+                assertEquals(from, compact.edgeSource(edge));
+                assertEquals(to, compact.edgeTarget(edge));
+            } else {
+                Set<Integer> ends = Set.of(compact.edgeSource(edge), compact.edgeTarget(edge));
+                assertEquals(Set.of(from, to), ends);
+            }
+        }
+    }
+
+    @Test
+    public void search_FindsCycleInWheel() {
+        Graph graph = new Graph();
+        Node[] nodes = TestGraphs.addNodes(graph, 12);
+        for (int i = 1; i < 12; i++) {
+            graph.addEdge(nodes[0], nodes[i]);
+            graph.addEdge(nodes[i], nodes[i == 11 ? 1 : i + 1]);
+        }
+        CompactGraph compact = CompactGraph.of(graph);
+        HamiltonianResult result = HamiltonianSearch.find(compact, TaskMonitor.NONE);
+        assertNotNull(result);
+        assertTrue(result.cycle());
+        assertVisitsEveryNodeOnce(compact, result);
+    }
+
+    @Test
+    public void search_FallsBackToPathWhenNoCycleExists() {
+        Graph graph = new Graph();
+        Node[] nodes = TestGraphs.addNodes(graph, 5);
+        for (int i = 0; i < 4; i++) graph.addWeightedEdge(nodes[i], nodes[i + 1], i + 1);
+        CompactGraph compact = CompactGraph.of(graph);
+        HamiltonianResult result = HamiltonianSearch.find(compact, TaskMonitor.NONE);
+        assertNotNull(result);
+        assertFalse(result.cycle());
+        assertEquals(10, result.weight());
+        assertVisitsEveryNodeOnce(compact, result);
+    }
+
+    @Test
+    public void search_FollowsDirectedEdgesForwardOnly() {
+        Graph graph = new Graph();
+        Node[] nodes = TestGraphs.addNodes(graph, 3);
+        graph.addWeightedDirectedEdge(nodes[0], nodes[1], 1);
+        graph.addWeightedDirectedEdge(nodes[2], nodes[1], 1);
+        assertNull(HamiltonianSearch.find(CompactGraph.of(graph), TaskMonitor.NONE));
+
+        graph.addWeightedDirectedEdge(nodes[1], nodes[2], 1);
+        CompactGraph compact = CompactGraph.of(graph);
+        HamiltonianResult result = HamiltonianSearch.find(compact, TaskMonitor.NONE);
+        assertNotNull(result);
+        assertFalse(result.cycle());
+        assertEquals(0, result.nodes()[0]);
+        assertVisitsEveryNodeOnce(compact, result);
+    }
+
+    @Test
+    public void search_RejectsStarGraph() {
+        Graph graph = new Graph();
+        Node[] nodes = TestGraphs.addNodes(graph, 5);
+        for (int i = 1; i < 5; i++) graph.addEdge(nodes[0], nodes[i]);
+        assertNull(HamiltonianSearch.find(CompactGraph.of(graph), TaskMonitor.NONE));
+    }
+}
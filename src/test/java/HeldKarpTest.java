@@ -0,0 +1,75 @@
+import net.tim.algorithm.HamiltonianResult;
+import net.tim.algorithm.HamiltonianSearch;
+import net.tim.algorithm.HeldKarp;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HeldKarpTest {
+
+    @Test
+    public void shortestCycle_PicksLightestTour() {
+        // Square with heavy sides 0-1 and 2-3; the tour using both diagonals is the cheapest one
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 4);
+        graph.addWeightedEdge(n[0], n[1], 10);
+        graph.addWeightedEdge(n[1], n[2], 1);
+        graph.addWeightedEdge(n[2], n[3], 10);
+        graph.addWeightedEdge(n[3], n[0], 1);
+        graph.addWeightedEdge(n[0], n[2], 2);
+        graph.addWeightedEdge(n[1], n[3], 2);
+        CompactGraph compact = CompactGraph.of(graph);
+
+        HamiltonianResult result = HeldKarp.shortestCycle(compact, TaskMonitor.NONE);
+        assertNotNull(result);
+        assertTrue(result.cycle());
+        assertEquals(6, result.weight());
+        assertEquals(4, result.edges().length);
+        long sum = 0;
+        for (int edge : result.edges()) sum += compact.edgeWeight(edge);
+        assertEquals(6, sum);
+    }
+
+    @Test
+    public void shortestCycle_RespectsDirection() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 3);
+        graph.addWeightedDirectedEdge(n[0], n[1], 1);
+        graph.addWeightedDirectedEdge(n[1], n[2], 1);
+        graph.addWeightedDirectedEdge(n[0], n[2], 1);
+        assertNull(HeldKarp.shortestCycle(CompactGraph.of(graph), TaskMonitor.NONE));
+
+        graph.addWeightedDirectedEdge(n[2], n[0], 5);
+        HamiltonianResult result = HeldKarp.shortestCycle(CompactGraph.of(graph), TaskMonitor.NONE);
+        assertNotNull(result);
+        assertEquals(7, result.weight());
+        assertArrayEquals(new int[]{0, 1, 2}, result.nodes());
+    }
+
+    @Test
+    public void findCycle_AgreesWithBacktracking() {
+        Random random = new Random(42);
+        for (int round = 0; round < 40; round++) {
+            Graph graph = new Graph();
+            int count = 6 + random.nextInt(8);
+            Node[] n = TestGraphs.addNodes(graph, count);
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    if (random.nextInt(4) == 0) graph.addWeightedEdge(n[i], n[j], 1 + random.nextInt(9));
+                }
+            }
+            CompactGraph compact = CompactGraph.of(graph);
+            HamiltonianResult exact = HeldKarp.findCycle(compact, TaskMonitor.NONE);
+            HamiltonianResult searched = HamiltonianSearch.findCycle(compact, TaskMonitor.NONE);
+            assertEquals(searched != null, exact != null);
+            assertEquals(exact != null, HeldKarp.shortestCycle(compact, TaskMonitor.NONE) != null);
+            if (exact != null) assertEquals(count, exact.nodes().length);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+import net.tim.algorithm.MinimumSpanningForest;
+import net.tim.algorithm.SpanningForestResult;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MinimumSpanningForestTest {
+
+    @Test
+    public void bothAlgorithms_FindTheSameForest() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 6);
+        graph.addWeightedEdge(n[0], n[1], 4);
+        graph.addWeightedEdge(n[1], n[2], -2);
+        graph.addWeightedDirectedEdge(n[2], n[0], 3);
+        graph.addWeightedEdge(n[0], n[0], -10);
+        graph.addWeightedEdge(n[3], n[4], 7);
+        CompactGraph compact = CompactGraph.of(graph);
+
+        for (SpanningForestResult forest : new SpanningForestResult[]{
+                MinimumSpanningForest.kruskal(compact, TaskMonitor.NONE),
+                MinimumSpanningForest.prim(compact, TaskMonitor.NONE)}) {
+            assertEquals(3 - 2 + 7, forest.weight());
+            assertEquals(3, forest.edges().length);
+            assertEquals(3, forest.trees());
+        }
+    }
+
+    @Test
+    public void kruskalAndPrim_AgreeOnRandomGraphs() {
+        Random random = new Random(21);
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addNodes(graph, 2000);
+        for (int i = 0; i < 20000; i++) {
+            graph.addEdge(n[random.nextInt(n.length)], n[random.nextInt(n.length)], random.nextBoolean(), random.nextInt(2000) - 100);
+        }
+        CompactGraph compact = CompactGraph.of(graph);
+
+        SpanningForestResult kruskal = MinimumSpanningForest.kruskal(compact, TaskMonitor.NONE);
+        SpanningForestResult prim = MinimumSpanningForest.prim(compact, TaskMonitor.NONE);
+        assertEquals(kruskal.weight(), prim.weight());
+        assertEquals(kruskal.trees(), prim.trees());
+        assertEquals(compact.nodeCount() - kruskal.trees(), kruskal.edges().length);
+        long total = 0;
+        for (int edge : prim.edges()) total += compact.edgeWeight(edge);
+        assertEquals(prim.weight(), total);
+    }
+}
@@ -18,44 +18,44 @@ public class NodeEdgeTest {
 
     @Test
     public void nodeInitialization_SetsCorrectValues() {
-        assertEquals(100, node1.x);
-        assertEquals(200, node1.y);
-        assertEquals("Node1", node1.name);
+        assertEquals(100, node1.getX());
+        assertEquals(200, node1.getY());
+        assertEquals("Node1", node1.getName());
     }
 
     @Test
     public void edgeInitialization_SetsCorrectValues() {
         edge = new Edge(node1, node2);
-        assertEquals(node1, edge.from);
-        assertEquals(node2, edge.to);
-        assertFalse(edge.isDirected);
-        assertEquals(1, edge.weight);
+        assertEquals(node1, edge.getFrom());
+        assertEquals(node2, edge.getTo());
+        assertFalse(edge.isDirected());
+        assertEquals(1, edge.getWeight());
     }
 
     @Test
     public void directedEdgeInitialization_SetsCorrectValues() {
         edge = new Edge(node1, node2, true);
-        assertEquals(node1, edge.from);
-        assertEquals(node2, edge.to);
-        assertTrue(edge.isDirected);
-        assertEquals(1, edge.weight);
+        assertEquals(node1, edge.getFrom());
+        assertEquals(node2, edge.getTo());
+        assertTrue(edge.isDirected());
+        assertEquals(1, edge.getWeight());
     }
 
     @Test
     public void weightedEdgeInitialization_SetsCorrectValues() {
         edge = new Edge(node1, node2, false, 5);
-        assertEquals(node1, edge.from);
-        assertEquals(node2, edge.to);
-        assertFalse(edge.isDirected);
-        assertEquals(5, edge.weight);
+        assertEquals(node1, edge.getFrom());
+        assertEquals(node2, edge.getTo());
+        assertFalse(edge.isDirected());
+        assertEquals(5, edge.getWeight());
     }
 
     @Test
     public void weightedDirectedEdgeInitialization_SetsCorrectValues() {
         edge = new Edge(node1, node2, true, 10);
-        assertEquals(node1, edge.from);
-        assertEquals(node2, edge.to);
-        assertTrue(edge.isDirected);
-        assertEquals(10, edge.weight);
+        assertEquals(node1, edge.getFrom());
+        assertEquals(node2, edge.getTo());
+        assertTrue(edge.isDirected());
+        assertEquals(10, edge.getWeight());
     }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+import net.tim.algorithm.ShortestPathResult;
+import net.tim.algorithm.ShortestPaths;
+import net.tim.model.CompactGraph;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import net.tim.model.TaskMonitor;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ShortestPathsTest {
+
+    // Floyd-Warshall over the same edge semantics as reference
+    private static long[][] allPairs(CompactGraph compact) {
+        int n = compact.nodeCount();
+        long inf = Long.MAX_VALUE / 4;
+        long[][] d = new long[n][n];
+        for (long[] row : d) Arrays.fill(row, inf);
+        for (int v = 0; v < n; v++) d[v][v] = 0;
+        for (int e = 0; e < compact.edgeCount(); e++) {
+            int a = compact.edgeSource(e), b = compact.edgeTarget(e), w = compact.edgeWeight(e);
+            d[a][b] = Math.min(d[a][b], w);
+            if (!compact.isDirected(e)) d[b][a] = Math.min(d[b][a], w);
+        }
+        for (int k = 0; k < n; k++)
+            for (int i = 0; i < n; i++)
+                for (int j = 0; j < n; j++)
+                    if (d[i][k] < inf && d[k][j] < inf) d[i][j] = Math.min(d[i][j], d[i][k] + d[k][j]);
+        return d;
+    }
+
+    private static void assertValidRoute(CompactGraph compact, ShortestPathResult path, int source, int target) {
+        assertEquals(source, path.nodes()[0]);
+        assertEquals(target, path.nodes()[path.nodes().length - 1]);
+        long total = 0;
+        for (int i = 0; i < path.edges().length; i++) {
+            int edge = path.edges()[i], from = path.nodes()[i], to = path.nodes()[i + 1];
+            boolean forward = compact.edgeSource(edge) == from && compact.edgeTarget(edge) == to;
+            boolean backward = compact.edgeSource(edge) == to && compact.edgeTarget(edge) == from;
+            assertTrue(compact.isDirected(edge) ? forward : forward || backward);
+            total += compact.edgeWeight(edge);
+        }
+        assertEquals(path.distance(), total);
+    }
+
+    @Test
+    public void allAlgorithms_AgreeWithFloydWarshall() {
+        Random random = new Random(7);
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addRandomNodes(graph, 40, random, 1000);
+        for (int i = 0; i < 120; i++) {
+            Node a = n[random.nextInt(n.length)], b = n[random.nextInt(n.length)];
+            graph.addEdge(a, b, random.nextBoolean(), random.nextInt(50));
+        }
+        CompactGraph compact = CompactGraph.of(graph);
+        long[][] expected = allPairs(compact);
+
+        for (int source = 0; source < 40; source += 3) {
+            for (int target = 0; target < 40; target++) {
+                ShortestPathResult[] results = {
+                        ShortestPaths.dijkstra(compact, source, target, TaskMonitor.NONE),
+                        ShortestPaths.aStar(compact, source, target, TaskMonitor.NONE),
+                        ShortestPaths.bellmanFord(compact, source, target, TaskMonitor.NONE)};
+                for (ShortestPathResult path : results) {
+                    if (expected[source][target] >= Long.MAX_VALUE / 4) {
+                        assertNull(path);
+                    } else {
+                        assertEquals(expected[source][target], path.distance());
+                        assertValidRoute(compact, path, source, target);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void find_UsesBellmanFordForNegativeWeights() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addRandomNodes(graph, 3, new Random(1), 1000);
+        graph.addWeightedDirectedEdge(n[0], n[1], 5);
+        graph.addWeightedDirectedEdge(n[0], n[2], 2);
+        graph.addWeightedDirectedEdge(n[1], n[2], -4);
+        CompactGraph compact = CompactGraph.of(graph);
+
+        ShortestPathResult path = ShortestPaths.find(compact, 0, 2, TaskMonitor.NONE);
+        assertEquals(1, path.distance());
+        assertArrayEquals(new int[]{0, 1, 2}, path.nodes());
+        assertNull(ShortestPaths.find(compact, 2, 0, TaskMonitor.NONE));
+    }
+
+    @Test
+    public void bellmanFord_ReportsNegativeCycleApartFromNoRoute() {
+        Graph graph = new Graph();
+        Node[] n = TestGraphs.addRandomNodes(graph, 4, new Random(1), 1000);
+        graph.addWeightedDirectedEdge(n[0], n[1], 1);
+        graph.addWeightedEdge(n[1], n[2], -1);
+        CompactGraph compact = CompactGraph.of(graph);
+        assertTrue(ShortestPaths.bellmanFord(compact, 0, 2, TaskMonitor.NONE).isNegativeCycle());
+        assertNull(ShortestPaths.bellmanFord(compact, 0, 3, TaskMonitor.NONE));
+    }
+
+    @Test
+    public void aStar_FindsRouteAcrossLargeGrid() {
+        // 700 x 700 road grid, about a million edges, with weights no smaller than the pixel distance
+        int side = 700;
+        Graph graph = new Graph();
+        Node[] n = new Node[side * side];
+        for (int i = 0; i < n.length; i++) {
+            n[i] = new Node((i % side) * 10, (i / side) * 10, null);
+            graph.addNode(n[i]);
+        }
+        Random random = new Random(3);
+        for (int i = 0; i < n.length; i++) {
+            if (i % side + 1 < side) graph.addWeightedEdge(n[i], n[i + 1], 10 + random.nextInt(10));
+            if (i + side < n.length) graph.addWeightedEdge(n[i], n[i + side], 10 + random.nextInt(10));
+        }
+        CompactGraph compact = CompactGraph.of(graph);
+
+        ShortestPathResult aStar = ShortestPaths.aStar(compact, 0, n.length - 1, TaskMonitor.NONE);
+        ShortestPathResult dijkstra = ShortestPaths.dijkstra(compact, 0, n.length - 1, TaskMonitor.NONE);
+        assertEquals(dijkstra.distance(), aStar.distance());
+        assertValidRoute(compact, aStar, 0, n.length - 1);
+    }
+}
@@ -0,0 +1,114 @@
+import net.tim.model.Edge;
+import net.tim.model.Node;
+import net.tim.view.SpatialIndex;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SpatialIndexTest {
+    private SpatialIndex index;
+    private Node a, b, c;
+    private Edge longEdge;
+
+    @Before
+    public void setUp() {
+        index = new SpatialIndex(64);
+        a = new Node(10, 10, "A");
+        b = new Node(1000, 700, "B");
+        c = new Node(15, 12, "C");
+        longEdge = new Edge(a, b, false, 1);
+        index.rebuild(List.of(a, b, c), List.of(longEdge));
+    }
+
+    @Test
+    public void nodeAt_ReturnsNearestNodeInRange() {
+        assertSame(c, index.nodeAt(14, 12, 10));
+        assertSame(a, index.nodeAt(9, 9, 10));
+        assertSame(b, index.nodeAt(995, 705, 10));
+        assertNull(index.nodeAt(500, 10, 10));
+    }
+
+    @Test
+    public void edgeAt_FindsEdgeAcrossManyCells() {
+        // Midpoint of the long diagonal, far from both endpoints' cells
+        assertSame(longEdge, index.edgeAt(505, 355, 10));
+        assertSame(longEdge, index.edgeAt(-3 + 505, 4 + 355, 10));
+        assertNull(index.edgeAt(505, 400, 10));
+    }
+
+    @Test
+    public void updates_FollowMovesAndRemovals() {
+        b.moveTo(1000, 10);
+        index.updateNode(b);
+        index.updateEdge(longEdge);
+        assertNull(index.nodeAt(1000, 700, 10));
+        assertSame(b, index.nodeAt(1000, 10, 10));
+        assertNull(index.edgeAt(505, 355, 10));
+        assertSame(longEdge, index.edgeAt(500, 12, 10));
+
+        index.removeEdge(longEdge);
+        index.removeNode(c);
+        assertNull(index.edgeAt(500, 12, 10));
+        assertSame(a, index.nodeAt(14, 12, 10));
+    }
+
+    @Test
+    public void forEachEdge_ReportsEachVisibleEdgeOnce() {
+        List<Edge> seen = new ArrayList<>();
+        index.forEachEdge(new Rectangle(0, 0, 600, 400), seen::add);
+        assertEquals(List.of(longEdge), seen);
+
+        seen.clear();
+        index.forEachEdge(new Rectangle(2000, 2000, 100, 100), seen::add);
+        assertTrue(seen.isEmpty());
+
+        List<Node> nodes = new ArrayList<>();
+        index.forEachNode(new Rectangle(0, 0, 50, 50), nodes::add);
+        assertEquals(2, nodes.size());
+    }
+
+    @Test
+    public void veryLongEdges_StayFindableAsTheyChangeGrids() {
+        // 8000 px spans far more than the coarse factor of small cells
+        Node far = new Node(8010, 10, "Far");
+        Edge veryLong = new Edge(a, far, false, 1);
+        index.addNode(far);
+        index.addEdge(veryLong);
+        assertSame(veryLong, index.edgeAt(4000, 12, 10));
+
+        List<Edge> seen = new ArrayList<>();
+        index.forEachEdge(new Rectangle(3000, 0, 3000, 50), seen::add);
+        assertEquals(List.of(veryLong), seen);
+
+        far.moveTo(200, far.getY());
+        index.updateNode(far);
+        index.updateEdge(veryLong);
+        assertNull(index.edgeAt(4000, 12, 10));
+        assertSame(veryLong, index.edgeAt(100, 10, 5));
+
+        index.removeEdge(veryLong);
+        assertNull(index.edgeAt(100, 10, 5));
+    }
+
+    @Test
+    public void labelMaxima_FollowRenamesAndWeightChangesUntilCleared() {
+        assertEquals(1, index.maxNameLength());
+        assertEquals(1, index.maxWeightLength());
+
+        c.setName("A much longer name");
+        index.updateLabel(c);
+        longEdge.setWeight(-2147483648);
+        index.updateLabel(longEdge);
+        assertEquals(18, index.maxNameLength());
+        assertEquals(11, index.maxWeightLength());
+
+        index.rebuild(List.of(a, b), List.of());
+        assertEquals(1, index.maxNameLength());
+        assertEquals(0, index.maxWeightLength());
+    }
+}
@@ -0,0 +1,31 @@
+import net.tim.model.Graph;
+import net.tim.model.Node;
+
+import java.util.Random;
+
+// Graph building shared by the algorithm tests
+final class TestGraphs {
+
+    private TestGraphs() {
+    }
+
+    // Nodes N0, N1, ... spaced 10 apart along the x axis
+    static Node[] addNodes(Graph graph, int count) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new Node(i * 10, 0, "N" + i);
+            graph.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+
+    // Nodes N0, N1, ... at random positions in a square with the given side
+    static Node[] addRandomNodes(Graph graph, int count, Random random, int side) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = new Node(random.nextInt(side), random.nextInt(side), "N" + i);
+            graph.addNode(nodes[i]);
+        }
+        return nodes;
+    }
+}
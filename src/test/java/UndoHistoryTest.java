@@ -0,0 +1,111 @@
+import net.tim.controller.Action;
+import net.tim.controller.UndoHistory;
+import net.tim.model.Node;
+import org.junit.Test;
+
+import java.awt.*;
+
+import static org.junit.Assert.*;
+
+public class UndoHistoryTest {
+
+    private static Action color(Node node, Color color) {
+        return new Action(Action.ActionType.SET_NODE_COLOR, node, null, node.getColor(), color);
+    }
+
+    private static Action move(Node node, int fromX, int toX) {
+        return new Action(Action.ActionType.MOVE_NODE, node, null, new Point(fromX, 0), new Point(toX, 0));
+    }
+
+    @Test
+    public void testUndoRedoOrder() {
+        UndoHistory history = new UndoHistory();
+        Node node = new Node(0, 0, "A");
+        Action first = color(node, Color.RED), second = color(node, Color.BLUE);
+        history.push(first);
+        history.push(second);
+
+        assertSame(second, history.undo());
+        assertSame(first, history.undo());
+        assertNull(history.undo());
+        assertSame(first, history.redo());
+        assertSame(second, history.redo());
+        assertNull(history.redo());
+    }
+
+    @Test
+    public void testPushDiscardsRedo() {
+        UndoHistory history = new UndoHistory();
+        Node node = new Node(0, 0, "A");
+        history.push(color(node, Color.RED));
+        history.undo();
+        history.push(color(node, Color.BLUE));
+        assertFalse(history.canRedo());
+        assertEquals(1, history.size());
+    }
+
+    @Test
+    public void testEntryLimitDropsOldest() {
+        UndoHistory history = new UndoHistory(3, Long.MAX_VALUE);
+        Node node = new Node(0, 0, "A");
+        Action[] actions = new Action[5];
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] = color(node, new Color(i));
+            history.push(actions[i]);
+        }
+        assertEquals(3, history.size());
+        assertSame(actions[4], history.undo());
+        assertSame(actions[3], history.undo());
+        assertSame(actions[2], history.undo());
+        assertNull(history.undo());
+    }
+
+    @Test
+    public void testMemoryLimitDropsOldest() {
+        UndoHistory history = new UndoHistory(1000, 1000);
+        Node node = new Node(0, 0, "A");
+        for (int i = 0; i < 100; i++) history.push(color(node, Color.RED));
+        assertTrue(history.estimatedBytes() <= 1000);
+        assertTrue(history.size() < 100);
+    }
+
+    @Test
+    public void testConsecutiveMovesOfOneNodeMerge() {
+        UndoHistory history = new UndoHistory();
+        Node a = new Node(0, 0, "A"), b = new Node(0, 0, "B");
+        history.beginGesture();
+        history.push(move(a, 0, 10));
+        history.push(move(a, 10, 20));
+        history.push(move(b, 0, 5));
+        history.endGesture();
+        assertEquals(2, history.size());
+        history.undo();
+        Action merged = history.undo();
+        assertEquals(new Point(0, 0), merged.oldValue());
+        assertEquals(new Point(20, 0), merged.newValue());
+    }
+
+    @Test
+    public void testSeparateDragsOfOneNodeStaySeparate() {
+        UndoHistory history = new UndoHistory();
+        Node a = new Node(0, 0, "A");
+        for (int drag = 0; drag < 2; drag++) {
+            history.beginGesture();
+            history.push(move(a, 20 * drag, 20 * drag + 10));
+            history.push(move(a, 20 * drag + 10, 20 * drag + 20));
+            history.endGesture();
+        }
+        assertEquals(2, history.size());
+        assertEquals(new Point(20, 0), history.undo().oldValue());
+        assertEquals(new Point(0, 0), history.undo().oldValue());
+    }
+
+    @Test
+    public void testMovesOutsideAGestureDoNotMerge() {
+        UndoHistory history = new UndoHistory();
+        Node a = new Node(0, 0, "A");
+        history.push(move(a, 0, 10));
+        history.push(move(a, 10, 20));
+        assertEquals(2, history.size());
+    }
+}
@@ -0,0 +1,60 @@
+package net.tim.view;
+
+import net.tim.controller.GraphController;
+import net.tim.model.Graph;
+import net.tim.model.Node;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.Assert.*;
+
+public class GraphPanelTest {
+    private GraphPanel panel;
+    private GraphController controller;
+
+    @Before
+    public void setUp() {
+        System.setProperty("java.awt.headless", "true");
+        panel = new GraphPanel();
+        controller = new GraphController(new Graph(), panel);
+        panel.setGraphController(controller);
+        panel.setSize(2 * TileCache.TILE_SIZE, TileCache.TILE_SIZE);
+    }
+
+    @Test
+    public void renameToLongName_InvalidatesTheTilesTheNameReachesInto() {
+        controller.addNode(20, 100, "A");
+        Node node = controller.getNodes().get(0);
+        paint();
+
+        controller.renameNode(node, "A name long enough to run well past the first tile");
+        BufferedImage image = paint();
+
+        // The second tile was cached while it was still empty; only invalidation brings the name's tail into it
+        assertTrue(hasDarkPixel(image, new Rectangle(TileCache.TILE_SIZE + 10, 60, 60, 40)));
+    }
+
+    private BufferedImage paint() {
+        BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            panel.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static boolean hasDarkPixel(BufferedImage image, Rectangle area) {
+        for (int x = area.x; x < area.x + area.width; x++) {
+            for (int y = area.y; y < area.y + area.height; y++) {
+                Color color = new Color(image.getRGB(x, y));
+                if (color.getRed() < 64 && color.getGreen() < 64 && color.getBlue() < 64) return true;
+            }
+        }
+        return false;
+    }
+}